@@ -0,0 +1,76 @@
+package com.example.barbershop.config;
+
+import com.example.barbershop.entity.Appointment;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Переводит существующую базу на текущую схему (заполняет колонки, которые Hibernate
+ * не может добавить как NOT NULL в непустую таблицу) и создает ограничения, которые Hibernate
+ * не умеет описать аннотациями (ограничение-исключение на пересечение записей мастера).
+ * Выполняется сразу после создания схемы Hibernate, до приема запросов.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseConstraintsInitializer {
+
+    private final DataSource dataSource;
+
+    @PostConstruct
+    void createConstraints() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String database = connection.getMetaData().getDatabaseProductName();
+            if (!"PostgreSQL".equalsIgnoreCase(database)) {
+                log.warn("Ограничения для {} не создаются: поддерживается только PostgreSQL", database);
+                return;
+            }
+        }
+
+        // Скрипт миграции содержит DO-блок с ";" внутри — выполняется целиком одной командой
+        ResourceDatabasePopulator migration = new ResourceDatabasePopulator(
+                new ClassPathResource("db/appointments-migration.sql"));
+        migration.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        migration.execute(dataSource);
+        log.info("Миграция таблицы appointments выполнена");
+
+        ResourceDatabasePopulator constraint = new ResourceDatabasePopulator(
+                new ClassPathResource("db/appointments-no-overlap.sql"));
+        constraint.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        constraint.execute(dataSource);
+
+        if (constraintExists(Appointment.NO_OVERLAP_CONSTRAINT)) {
+            log.info("Ограничение appointments_no_overlap на месте");
+        } else {
+            // Старые пересекающиеся записи не мешают запуску; пересечения новых записей
+            // по-прежнему отсекают проверки приложения под блокировкой мастера
+            log.warn("Ограничение appointments_no_overlap не создано: в таблице appointments есть "
+                    + "пересекающиеся активные записи одного мастера. Исправьте их, ограничение "
+                    + "будет создано при следующем запуске");
+        }
+    }
+
+    private boolean constraintExists(String name) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT 1 FROM pg_constraint WHERE conname = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
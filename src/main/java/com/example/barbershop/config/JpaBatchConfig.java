@@ -0,0 +1,24 @@
+package com.example.barbershop.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC-батчи Hibernate для пакетного создания записей.
+ * Значения из spring.jpa.properties.* имеют приоритет над заданными здесь.
+ */
+@Configuration
+public class JpaBatchConfig {
+
+    private static final String BATCH_SIZE = "hibernate.jdbc.batch_size";
+    private static final String ORDER_INSERTS = "hibernate.order_inserts";
+
+    @Bean
+    HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(BATCH_SIZE, "50");
+            properties.putIfAbsent(ORDER_INSERTS, "true");
+        };
+    }
+}
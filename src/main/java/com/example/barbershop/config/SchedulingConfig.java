@@ -0,0 +1,12 @@
+package com.example.barbershop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает фоновые задачи по расписанию (сверка счетчиков статистики).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,8 +2,9 @@ package com.example.barbershop.controller;
 
 import com.example.barbershop.entity.User;
 import com.example.barbershop.security.CustomUserDetails;
-import com.example.barbershop.service.StatisticsService;
+import com.example.barbershop.service.StatisticsSnapshotService;
 import com.example.barbershop.service.UserService;
+import com.example.barbershop.service.UserStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,19 +15,21 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import java.util.List;
-import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
     private final UserService userService;
-    private final StatisticsService statisticsService;
+    private final StatisticsSnapshotService statisticsSnapshotService;
+    private final UserStatsService userStatsService;
 
     @Autowired
-    public AdminController(UserService userService, StatisticsService statisticsService) {
+    public AdminController(UserService userService, StatisticsSnapshotService statisticsSnapshotService,
+                           UserStatsService userStatsService) {
         this.userService = userService;
-        this.statisticsService = statisticsService;
+        this.statisticsSnapshotService = statisticsSnapshotService;
+        this.userStatsService = userStatsService;
     }
 
     /**
@@ -44,24 +47,15 @@ public class AdminController {
             throw new RuntimeException("Доступ запрещен: требуется роль ADMIN");
         }
 
-        // Получаем статистику
-        long totalUsers = userService.findAll().size();
-        long clientsCount = userService.findAll().stream()
-                .filter(u -> u.getRole().equals(User.Role.CLIENT))
-                .count();
-        long barbersCount = userService.findAll().stream()
-                .filter(u -> u.getRole().equals(User.Role.BARBER))
-                .count();
-        long adminsCount = userService.findAll().stream()
-                .filter(u -> u.getRole().equals(User.Role.ADMIN))
-                .count();
+        // Количество пользователей по ролям — один агрегирующий запрос, результат кэшируется
+        UserStatsService.UserStats userStats = userStatsService.getUserStats();
 
         model.addAttribute("admin", admin);
         model.addAttribute("pageTitle", "Панель администратора");
-        model.addAttribute("totalUsers", totalUsers);
-        model.addAttribute("clientsCount", clientsCount);
-        model.addAttribute("barbersCount", barbersCount);
-        model.addAttribute("adminsCount", adminsCount);
+        model.addAttribute("totalUsers", userStats.total());
+        model.addAttribute("clientsCount", userStats.clients());
+        model.addAttribute("barbersCount", userStats.barbers());
+        model.addAttribute("adminsCount", userStats.admins());
 
         return "admin/dashboard";
     }
@@ -112,16 +106,16 @@ public class AdminController {
             return "redirect:/";
         }
 
-        // Получаем все виды статистики
-        Map<String, Object> generalStats = statisticsService.getGeneralStatistics();
-        Map<String, Object> weeklyStats = statisticsService.getWeeklyStatistics();
-        Map<String, Object> barberStats = statisticsService.getBarberStatistics();
-        Map<String, Object> serviceStats = statisticsService.getServiceStatistics();
+        // Все виды статистики из снимка: устаревший снимок пересчитывается в фоне
+        StatisticsSnapshotService.StatisticsSnapshot snapshot = statisticsSnapshotService.get();
 
-        model.addAttribute("generalStats", generalStats);
-        model.addAttribute("weeklyStats", weeklyStats);
-        model.addAttribute("barberStats", barberStats);
-        model.addAttribute("serviceStats", serviceStats);
+        model.addAttribute("generalStats", snapshot.generalStats());
+        model.addAttribute("weeklyStats", snapshot.weeklyStats());
+        model.addAttribute("barberStats", snapshot.barberStats());
+        model.addAttribute("serviceStats", snapshot.serviceStats());
+        model.addAttribute("distributionStats", snapshot.distributionStats());
+        model.addAttribute("statsComputedAt", snapshot.computedAt());
+        model.addAttribute("statsAgeSeconds", snapshot.age().toSeconds());
         model.addAttribute("user", userDetails.getUser());
         model.addAttribute("pageTitle", "Статистика системы");
 
@@ -1,23 +1,34 @@
 package com.example.barbershop.controller;
 
 import com.example.barbershop.dto.AppointmentResponseDto;
-import com.example.barbershop.entity.Appointment;
 import com.example.barbershop.entity.Barber;
 import com.example.barbershop.entity.User;
 import com.example.barbershop.repository.BarberRepository;
 import com.example.barbershop.security.CustomUserDetails;
 import com.example.barbershop.service.AppointmentService;
+import com.example.barbershop.service.DayOccupancy;
+import com.example.barbershop.service.DayOccupancyService;
 import com.example.barbershop.service.UserService;
+import com.example.barbershop.service.WorkingScheduleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Controller
 @RequestMapping("/barber")
@@ -28,6 +39,10 @@ public class BarberController {
     private final UserService userService;
     private final AppointmentService appointmentService;
     private final BarberRepository barberRepository;
+    private final WorkingScheduleService workingScheduleService;
+    private final DayOccupancyService dayOccupancyService;
+
+    private static final int SCHEDULE_PREVIEW_DAYS = 7;
 
     /**
      * Панель парикмахера (мастера)
@@ -54,7 +69,7 @@ public class BarberController {
     }
 
     /**
-     * Расписание мастера
+     * Расписание мастера: недельный шаблон, отсутствия и свободное время на ближайшую неделю
      */
     @GetMapping("/schedule")
     public String schedule(Model model,
@@ -69,12 +84,97 @@ public class BarberController {
             return "redirect:/client/dashboard";
         }
 
+        Barber barber = barberRepository.findByUserId(barberUser.getId())
+                .orElseThrow(() -> new RuntimeException("Мастер не найден в системе"));
+
+        // Свободные интервалы берутся из кэша карт занятости (рабочее время минус записи)
+        LocalDate today = LocalDate.now();
+        List<DayOccupancy> upcomingDays = dayOccupancyService.getOccupancyRange(barber.getId(),
+                today, today.plusDays(SCHEDULE_PREVIEW_DAYS - 1));
+
         model.addAttribute("barber", barberUser);
+        model.addAttribute("workingDays", workingScheduleService.getWeeklySchedule(barber.getId()));
+        model.addAttribute("timeOff", workingScheduleService.getUpcomingTimeOff(barber.getId()));
+        model.addAttribute("upcomingDays", upcomingDays);
+        model.addAttribute("daysOfWeek", DayOfWeek.values());
         model.addAttribute("pageTitle", "Мое расписание");
 
         return "barber/schedule";
     }
 
+    /**
+     * Изменить рабочие часы на день недели (dayOff=true — выходной)
+     */
+    @PostMapping("/schedule/day")
+    public String updateWorkingDay(@RequestParam DayOfWeek dayOfWeek,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                                   @RequestParam(defaultValue = "false") boolean dayOff,
+                                   @AuthenticationPrincipal CustomUserDetails userDetails,
+                                   RedirectAttributes redirectAttributes) {
+        return updateSchedule(userDetails, redirectAttributes, barberId -> workingScheduleService
+                .updateWorkingDay(barberId, dayOfWeek, dayOff ? null : startTime, dayOff ? null : endTime));
+    }
+
+    /**
+     * Добавить еженедельный перерыв
+     */
+    @PostMapping("/schedule/breaks")
+    public String addBreak(@RequestParam DayOfWeek dayOfWeek,
+                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                           @AuthenticationPrincipal CustomUserDetails userDetails,
+                           RedirectAttributes redirectAttributes) {
+        return updateSchedule(userDetails, redirectAttributes,
+                barberId -> workingScheduleService.addBreak(barberId, dayOfWeek, startTime, endTime));
+    }
+
+    @PostMapping("/schedule/breaks/{id}/delete")
+    public String removeBreak(@PathVariable Long id,
+                              @AuthenticationPrincipal CustomUserDetails userDetails,
+                              RedirectAttributes redirectAttributes) {
+        return updateSchedule(userDetails, redirectAttributes,
+                barberId -> workingScheduleService.removeBreak(barberId, id));
+    }
+
+    /**
+     * Добавить отсутствие (отпуск, больничный)
+     */
+    @PostMapping("/schedule/time-off")
+    public String addTimeOff(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                             @RequestParam(required = false) String reason,
+                             @AuthenticationPrincipal CustomUserDetails userDetails,
+                             RedirectAttributes redirectAttributes) {
+        return updateSchedule(userDetails, redirectAttributes,
+                barberId -> workingScheduleService.addTimeOff(barberId, start, end, reason));
+    }
+
+    @PostMapping("/schedule/time-off/{id}/delete")
+    public String removeTimeOff(@PathVariable Long id,
+                                @AuthenticationPrincipal CustomUserDetails userDetails,
+                                RedirectAttributes redirectAttributes) {
+        return updateSchedule(userDetails, redirectAttributes,
+                barberId -> workingScheduleService.removeTimeOff(barberId, id));
+    }
+
+    private String updateSchedule(CustomUserDetails userDetails, RedirectAttributes redirectAttributes,
+                                  Consumer<Long> action) {
+        if (userDetails == null) {
+            return "redirect:/login";
+        }
+
+        Barber barber = barberRepository.findByUserId(userDetails.getUser().getId())
+                .orElseThrow(() -> new RuntimeException("Мастер не найден в системе"));
+        try {
+            action.accept(barber.getId());
+            redirectAttributes.addFlashAttribute("successMessage", "Расписание обновлено");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/barber/schedule";
+    }
+
     /**
      * Записи клиентов на мастера
      */
@@ -95,13 +195,8 @@ public class BarberController {
         Barber barber = barberRepository.findByUserId(barberUser.getId())
                 .orElseThrow(() -> new RuntimeException("Мастер не найден в системе"));
 
-        // Получаем записи на этого мастера
-        List<Appointment> appointments = appointmentService.findAppointmentsByBarber(barber.getId());
-
-        // Конвертируем в DTO для отображения
-        List<AppointmentResponseDto> appointmentDtos = appointments.stream()
-                .map(appointmentService::convertToDto)
-                .collect(Collectors.toList());
+        // Получаем записи на этого мастера сразу в виде DTO (одним запросом)
+        List<AppointmentResponseDto> appointmentDtos = appointmentService.findAppointmentsByBarber(barber.getId());
 
         log.info("Barber {} has {} appointments", barberUser.getEmail(), appointmentDtos.size());
 
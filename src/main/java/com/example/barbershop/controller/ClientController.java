@@ -1,18 +1,26 @@
 package com.example.barbershop.controller;
 
 import com.example.barbershop.dto.AppointmentRequest;
+import com.example.barbershop.dto.DayOccupancyDto;
 import com.example.barbershop.dto.AppointmentResponseDto;
+import com.example.barbershop.dto.AvailabilityCalendarDto;
+import com.example.barbershop.dto.AvailableSlotDto;
+import com.example.barbershop.dto.SlotHoldDto;
 import com.example.barbershop.entity.Appointment;
-import com.example.barbershop.entity.Barber;
-import com.example.barbershop.entity.BarberService;
 import com.example.barbershop.entity.User;
-import com.example.barbershop.repository.AppointmentRepository;
-import com.example.barbershop.repository.BarberRepository;
-import com.example.barbershop.repository.BarberServiceRepository;
 import com.example.barbershop.security.CustomUserDetails;
 import com.example.barbershop.service.AppointmentService;
+import com.example.barbershop.service.CatalogSnapshot;
+import com.example.barbershop.service.CatalogSnapshotService;
+import com.example.barbershop.service.DayOccupancy;
+import com.example.barbershop.service.DayOccupancyService;
+import com.example.barbershop.service.SlotHoldService;
+import com.example.barbershop.service.SlotSearchService;
+import com.example.barbershop.service.SlotUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,11 +28,14 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/client")
@@ -32,10 +43,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ClientController {
 
+    private static final int MAX_CALENDAR_DAYS = 62;
+
     private final AppointmentService appointmentService;
-    private final BarberRepository barberRepository;
-    private final AppointmentRepository appointmentRepository;
-    private final BarberServiceRepository barberServiceRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final DayOccupancyService dayOccupancyService;
+    private final SlotSearchService slotSearchService;
+    private final SlotHoldService slotHoldService;
 
     @GetMapping("/dashboard")
     public String clientDashboard(Model model,
@@ -62,17 +76,11 @@ public class ClientController {
         }
 
         User user = userDetails.getUser();
-        System.out.println("DEBUG: User ID = " + user.getId());
-
-        // Получаем записи
-        List<Appointment> appointments = appointmentService.getClientAppointments(user.getId());
-        System.out.println("DEBUG: Found " + appointments.size() + " appointments");
+        log.debug("Записи клиента: userId={}", user.getId());
 
-        // Конвертируем в DTO
-        List<AppointmentResponseDto> appointmentDtos = new ArrayList<>();
-        for (Appointment appointment : appointments) {
-            appointmentDtos.add(appointmentService.convertToDto(appointment));
-        }
+        // Получаем записи сразу в виде DTO (одним запросом)
+        List<AppointmentResponseDto> appointmentDtos = appointmentService.getClientAppointments(user.getId());
+        log.debug("Найдено записей клиента: {}", appointmentDtos.size());
 
         model.addAttribute("appointments", appointmentDtos);
         model.addAttribute("user", user);
@@ -101,7 +109,7 @@ public class ClientController {
                                      @AuthenticationPrincipal CustomUserDetails userDetails) {
         if (userDetails == null) return "redirect:/login";
 
-        List<Barber> barbers = barberRepository.findAll();
+        List<CatalogSnapshot.BarberEntry> barbers = catalogSnapshotService.get().getBarbers();
 
         // Если передан serviceId, отмечаем его в модели
         model.addAttribute("selectedServiceId", serviceId);
@@ -117,55 +125,12 @@ public class ClientController {
                                          @RequestParam String date) {
         try {
             LocalDate localDate = LocalDate.parse(date);
-            LocalDateTime dayStart = localDate.atStartOfDay();
-            LocalDateTime dayEnd = localDate.plusDays(1).atStartOfDay();
-
-            // 1. Найти выбранную услугу мастера
-            BarberService barberService = barberServiceRepository.findById(barberServiceId)
-                    .orElseThrow(() -> new RuntimeException("Услуга не найдена"));
-
-            // 2. Найти все услуги ЭТОГО ЖЕ МАСТЕРА
-            Long barberId = barberService.getBarber().getId();
-            List<BarberService> allBarberServices = barberServiceRepository.findByBarberId(barberId);
-            List<Long> allBarberServiceIds = allBarberServices.stream()
-                    .map(BarberService::getId)
-                    .collect(Collectors.toList());
-
-            // 3. Найти все записи этого мастера на эту дату
-            List<Appointment> appointments = appointmentRepository
-                    .findByBarberServiceIdInAndAppointmentDateTimeBetween(
-                            allBarberServiceIds,
-                            dayStart,
-                            dayEnd
-                    );
-
-            // 4. Сгенерировать список ЗАНЯТЫХ 15-минутных слотов
-            List<String> occupiedSlots = new ArrayList<>();
-
-            for (Appointment appointment : appointments) {
-                if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
-                    continue; // Пропускаем отмененные
-                }
-
-                LocalDateTime start = appointment.getAppointmentDateTime();
-                Integer duration = appointment.getBarberService().getActualDurationMinutes();
-                LocalDateTime end = start.plusMinutes(duration);
-
-                // Генерируем все 15-минутные слоты в интервале
-                LocalDateTime slot = start;
-                while (slot.isBefore(end)) {
-                    // Форматируем как "HH:mm"
-                    String timeSlot = slot.toLocalTime()
-                            .format(DateTimeFormatter.ofPattern("HH:mm"));
-                    occupiedSlots.add(timeSlot);
-
-                    // Следующий 15-минутный слот
-                    slot = slot.plusMinutes(15);
-                }
-            }
 
-            // Убираем дубликаты
-            return occupiedSlots.stream().distinct().collect(Collectors.toList());
+            // Занятость считается по ВСЕМ услугам мастера, поэтому работаем с мастером, а не с услугой
+            Long barberId = catalogSnapshotService.resolveBarberId(barberServiceId);
+
+            // Карта занятости дня берется из кэша и уже содержит готовый список "HH:mm"
+            return dayOccupancyService.getOccupancy(barberId, localDate).getOccupiedSlots();
 
         } catch (Exception e) {
             log.error("Ошибка при получении занятых слотов", e);
@@ -173,6 +138,144 @@ public class ClientController {
         }
     }
 
+    /**
+     * Компактная карта занятости мастера на день.
+     * format=bitmask — битовая маска слотов, format=free — список свободных интервалов.
+     */
+    @GetMapping("/api/occupancy")
+    @ResponseBody
+    public ResponseEntity<DayOccupancyDto> getOccupancy(@RequestParam Long barberServiceId,
+                                                        @RequestParam String date,
+                                                        @RequestParam(defaultValue = "bitmask") String format) {
+        try {
+            LocalDate localDate = LocalDate.parse(date);
+            Long barberId = catalogSnapshotService.resolveBarberId(barberServiceId);
+            DayOccupancy occupancy = dayOccupancyService.getOccupancy(barberId, localDate);
+
+            DayOccupancyDto dto = new DayOccupancyDto();
+            dto.setDate(localDate);
+            dto.setSlotMinutes(occupancy.getSlotMinutes());
+            if ("free".equalsIgnoreCase(format)) {
+                dto.setFreeIntervals(occupancy.getFreeIntervals());
+            } else {
+                dto.setBitmask(occupancy.getBitmask());
+            }
+            return ResponseEntity.ok(dto);
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Некорректный запрос карты занятости: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Календарь доступности мастера на период за один запрос (не более 62 дней).
+     */
+    @GetMapping("/api/availability")
+    @ResponseBody
+    public ResponseEntity<AvailabilityCalendarDto> getAvailability(@RequestParam Long barberServiceId,
+                                                                   @RequestParam String from,
+                                                                   @RequestParam String to) {
+        try {
+            LocalDate fromDate = LocalDate.parse(from);
+            LocalDate toDate = LocalDate.parse(to);
+            if (toDate.isBefore(fromDate) || ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_CALENDAR_DAYS) {
+                throw new IllegalArgumentException("Некорректный период: " + from + " - " + to);
+            }
+
+            Long barberId = catalogSnapshotService.resolveBarberId(barberServiceId);
+            List<DayOccupancyDto> days = new ArrayList<>();
+            for (DayOccupancy occupancy : dayOccupancyService.getOccupancyRange(barberId, fromDate, toDate)) {
+                DayOccupancyDto day = new DayOccupancyDto();
+                day.setDate(occupancy.getDate());
+                day.setBitmask(occupancy.getBitmask());
+                day.setFreeSlots(occupancy.getFreeSlotCount());
+                days.add(day);
+            }
+
+            AvailabilityCalendarDto calendar = new AvailabilityCalendarDto();
+            calendar.setFrom(fromDate);
+            calendar.setTo(toDate);
+            calendar.setSlotMinutes(dayOccupancyService.getSlotMinutes());
+            calendar.setDays(days);
+            return ResponseEntity.ok(calendar);
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Некорректный запрос календаря доступности: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Ближайшие свободные слоты на услугу у любых мастеров.
+     * Время дня (timeFrom, timeTo) в формате "HH:mm" необязательно.
+     */
+    @GetMapping("/api/first-available")
+    @ResponseBody
+    public ResponseEntity<List<AvailableSlotDto>> findFirstAvailable(@RequestParam Long serviceId,
+                                                                     @RequestParam String from,
+                                                                     @RequestParam String to,
+                                                                     @RequestParam(required = false) String timeFrom,
+                                                                     @RequestParam(required = false) String timeTo,
+                                                                     @RequestParam(defaultValue = "5") int limit) {
+        try {
+            List<AvailableSlotDto> slots = slotSearchService.findFirstAvailable(
+                    serviceId,
+                    LocalDate.parse(from),
+                    LocalDate.parse(to),
+                    timeFrom != null ? LocalTime.parse(timeFrom) : null,
+                    timeTo != null ? LocalTime.parse(timeTo) : null,
+                    limit);
+            return ResponseEntity.ok(slots);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Некорректный запрос поиска слотов: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Удержать выбранное время, пока клиент заполняет форму.
+     * Предыдущее удержание клиента снимается; занятое время — 409.
+     */
+    @PostMapping("/api/holds")
+    @ResponseBody
+    public ResponseEntity<?> holdSlot(@RequestParam Long barberServiceId,
+                                      @RequestParam String dateTime,
+                                      @AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            SlotHoldService.Hold hold = slotHoldService.hold(userDetails.getUser().getId(),
+                    barberServiceId, LocalDateTime.parse(dateTime));
+            return ResponseEntity.ok(new SlotHoldDto(hold.id(), hold.barberId(),
+                    hold.start(), hold.end(), hold.expiresAt()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            HttpStatus status = e instanceof SlotUnavailableException
+                    ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(errorResponse);
+        }
+    }
+
+    /**
+     * Снять удержание времени.
+     */
+    @DeleteMapping("/api/holds/{holdId}")
+    @ResponseBody
+    public ResponseEntity<Void> releaseSlot(@PathVariable String holdId,
+                                            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        boolean released = slotHoldService.release(userDetails.getUser().getId(), holdId);
+        return released ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @PostMapping("/appointments/new")
     public String createAppointment(@ModelAttribute AppointmentRequest request,
                                     @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -193,7 +296,7 @@ public class ClientController {
             log.error("Ошибка при создании записи: {}", e.getMessage());
 
             // Заново загружаем мастеров для формы
-            List<Barber> barbers = barberRepository.findAll();
+            List<CatalogSnapshot.BarberEntry> barbers = catalogSnapshotService.get().getBarbers();
             model.addAttribute("barbers", barbers);
             model.addAttribute("user", userDetails.getUser());
             model.addAttribute("appointmentRequest", request);
@@ -0,0 +1,19 @@
+package com.example.barbershop.dto;
+
+import com.example.barbershop.entity.Appointment;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Фильтр списка записей. Незаданные поля не ограничивают выборку.
+ * Период [from, to) задается по времени начала записи.
+ */
+@Data
+public class AppointmentFilter {
+    private Appointment.AppointmentStatus status;
+    private Long barberId;
+    private Long clientId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -0,0 +1,19 @@
+package com.example.barbershop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница записей. nextCursor передается в следующий запрос;
+ * null означает, что страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPageDto {
+    private List<AppointmentResponseDto> items;
+    private String nextCursor;
+}
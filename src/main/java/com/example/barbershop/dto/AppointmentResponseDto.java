@@ -1,9 +1,13 @@
 package com.example.barbershop.dto;
 
+import com.example.barbershop.entity.Appointment;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class AppointmentResponseDto {
     private Long id;
     private LocalDateTime appointmentDateTime;
@@ -26,4 +30,45 @@ public class AppointmentResponseDto {
 
     // Время создания записи
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    /**
+     * Конструктор для JPQL-проекции (см. AppointmentRepository): все поля читаются
+     * одним запросом с join, без обхода ленивых связей сущности.
+     */
+    public AppointmentResponseDto(Long id, LocalDateTime appointmentDateTime,
+                                  Appointment.AppointmentStatus status, LocalDateTime createdAt,
+                                  Long clientId, String clientEmail, String clientFirstName, String clientLastName,
+                                  Long serviceId, String serviceName, Double servicePrice, Integer serviceDurationMinutes,
+                                  Long barberId, String barberEmail, String barberFirstName, String barberLastName) {
+        this.id = id;
+        this.appointmentDateTime = appointmentDateTime;
+        this.status = status != null ? status.name() : "UNKNOWN";
+        this.createdAt = createdAt;
+        this.clientId = clientId;
+        this.clientEmail = clientEmail;
+        this.clientName = fullName(clientFirstName, clientLastName, clientEmail);
+        this.serviceId = serviceId;
+        this.serviceName = serviceName;
+        this.servicePrice = servicePrice;
+        this.serviceDurationMinutes = serviceDurationMinutes;
+        this.barberId = barberId;
+        this.barberName = fullName(barberFirstName, barberLastName, barberEmail);
+    }
+
+    /**
+     * Имя и фамилия через пробел, а если их нет — email.
+     */
+    private static String fullName(String firstName, String lastName, String email) {
+        String fullName = "";
+        if (firstName != null) {
+            fullName += firstName;
+        }
+        if (lastName != null) {
+            if (!fullName.isEmpty()) {
+                fullName += " ";
+            }
+            fullName += lastName;
+        }
+        return fullName.isEmpty() ? email : fullName;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Календарь доступности мастера на период: по одной компактной карте занятости на день.
+ */
+@Data
+public class AvailabilityCalendarDto {
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Размер одного слота в минутах (общий для всех дней).
+     */
+    private Integer slotMinutes;
+
+    private List<DayOccupancyDto> days;
+}
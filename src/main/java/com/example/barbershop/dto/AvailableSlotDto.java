@@ -0,0 +1,21 @@
+package com.example.barbershop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Свободный слот мастера для выбранной услуги.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlotDto {
+    private Long barberServiceId;
+    private Long barberId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Double price;
+}
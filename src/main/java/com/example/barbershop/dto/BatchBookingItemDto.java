@@ -0,0 +1,27 @@
+package com.example.barbershop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одной заявки из пакетного бронирования.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingItemDto {
+
+    /**
+     * Порядковый номер заявки в запросе (с нуля).
+     */
+    private Integer index;
+
+    /**
+     * CREATED — запись создана, CONFLICT — время занято, ERROR — некорректная заявка.
+     */
+    private String status;
+
+    private Long appointmentId;
+    private String message;
+}
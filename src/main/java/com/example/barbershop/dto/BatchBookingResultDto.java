@@ -0,0 +1,15 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Итог пакетного бронирования: общие счетчики и результат по каждой заявке.
+ */
+@Data
+public class BatchBookingResultDto {
+    private Integer accepted;
+    private Integer rejected;
+    private List<BatchBookingItemDto> items;
+}
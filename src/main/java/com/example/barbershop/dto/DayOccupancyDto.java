@@ -0,0 +1,38 @@
+package com.example.barbershop.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Компактная карта занятости мастера на один день.
+ * Возвращается либо как битовая маска, либо как список свободных интервалов.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DayOccupancyDto {
+    private LocalDate date;
+
+    /**
+     * Размер одного слота в минутах.
+     */
+    private Integer slotMinutes;
+
+    /**
+     * Битовая маска занятых слотов в hex: i-я цифра описывает слоты 4i..4i+3,
+     * младший бит цифры — слот 4i. Установленный бит означает "занято".
+     */
+    private String bitmask;
+
+    /**
+     * Количество свободных слотов за день.
+     */
+    private Integer freeSlots;
+
+    /**
+     * Свободные интервалы дня (слитые подряд идущие свободные слоты).
+     */
+    private List<TimeRangeDto> freeIntervals;
+}
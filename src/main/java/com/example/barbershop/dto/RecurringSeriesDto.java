@@ -0,0 +1,24 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+public class RecurringSeriesDto {
+    private Long id;
+    private Long clientId;
+    private Long barberServiceId;
+    private Long barberId;
+    private LocalDate startDate;
+    private LocalTime startTime;
+    private Integer intervalWeeks;
+    private LocalDate endDate;
+    private Integer durationMinutes;
+    private String status;
+    private List<LocalDate> skippedDates;
+    private List<LocalDateTime> nextOccurrences;
+}
@@ -0,0 +1,20 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Запрос на создание серии повторяющихся записей.
+ * firstDateTime задает дату первого вхождения и время всех вхождений;
+ * endDate необязателен (без него серия бессрочная).
+ */
+@Data
+public class RecurringSeriesRequest {
+    private Long clientId;
+    private Long barberServiceId;
+    private LocalDateTime firstDateTime;
+    private Integer intervalWeeks;
+    private LocalDate endDate;
+}
@@ -0,0 +1,22 @@
+package com.example.barbershop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Временное удержание слота, пока клиент заполняет форму записи.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotHoldDto {
+    private String holdId;
+    private Long barberId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Instant expiresAt;
+}
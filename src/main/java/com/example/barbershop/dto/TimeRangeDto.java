@@ -0,0 +1,16 @@
+package com.example.barbershop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Интервал времени внутри дня в формате "HH:mm" (конец не включается).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeRangeDto {
+    private String start;
+    private String end;
+}
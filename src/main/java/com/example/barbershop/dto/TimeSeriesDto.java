@@ -0,0 +1,66 @@
+package com.example.barbershop.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Временной ряд показателей записей: по одной точке на день, неделю или месяц.
+ * Без разбивки содержит один ряд по всем записям, с разбивкой — по ряду на мастера или услугу.
+ */
+@Data
+public class TimeSeriesDto {
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Размер интервала: day, week или month.
+     */
+    private String granularity;
+
+    /**
+     * Разбивка: none, barber или service.
+     */
+    private String groupBy;
+
+    private List<Series> series;
+
+    /**
+     * Один ряд: все записи, один мастер или одна услуга.
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Series {
+        /**
+         * ID мастера или услуги; отсутствует у ряда без разбивки.
+         */
+        private Long id;
+        private String name;
+        private List<Point> points;
+    }
+
+    /**
+     * Показатели за один интервал. Пустые интервалы тоже присутствуют, с нулями.
+     */
+    @Data
+    public static class Point {
+        /**
+         * Первый день интервала (для недели — понедельник, для месяца — 1-е число).
+         */
+        private LocalDate periodStart;
+
+        /**
+         * Записи на прием в интервале (все статусы).
+         */
+        private long bookings;
+        private long completions;
+        private long cancellations;
+
+        /**
+         * Выручка по завершенным записям.
+         */
+        private double revenue;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class WaitlistEntryDto {
+    private Long id;
+    private Long clientId;
+    private Long serviceId;
+    private Long barberId;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private String status;
+    private Long appointmentId;
+    private LocalDateTime createdAt;
+}
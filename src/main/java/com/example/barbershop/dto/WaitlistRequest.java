@@ -0,0 +1,18 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запрос на постановку в лист ожидания.
+ * barberId необязателен: без него подойдет любой мастер, оказывающий услугу.
+ */
+@Data
+public class WaitlistRequest {
+    private Long clientId;
+    private Long serviceId;
+    private Long barberId;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+}
@@ -0,0 +1,31 @@
+package com.example.barbershop.dto;
+
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Строка недельного шаблона расписания мастера.
+ * startTime и endTime равны null в выходной день.
+ */
+@Data
+public class WorkingDayDto {
+    private DayOfWeek dayOfWeek;
+    private String dayName;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private List<BreakDto> breaks;
+
+    public boolean isDayOff() {
+        return startTime == null;
+    }
+
+    @Data
+    public static class BreakDto {
+        private Long id;
+        private LocalTime startTime;
+        private LocalTime endTime;
+    }
+}
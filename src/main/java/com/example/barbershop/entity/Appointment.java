@@ -11,13 +11,34 @@ import java.time.LocalDateTime;
  * Связывает клиента, выбранную услугу мастера и временной слот.
  */
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+        indexes = {
+                @Index(name = "idx_appointments_barber_time",
+                        columnList = "barber_id, appointment_date_time, appointment_end_time"),
+                // Постраничная выдача по ключу (appointment_date_time, id) с фильтрами
+                @Index(name = "idx_appointments_time_id", columnList = "appointment_date_time, id"),
+                @Index(name = "idx_appointments_client_time_id", columnList = "client_id, appointment_date_time, id"),
+                @Index(name = "idx_appointments_status_time_id", columnList = "status, appointment_date_time, id"),
+                // Поиск дней, измененных с прошлого пересчета дневной статистики
+                @Index(name = "idx_appointments_updated_at", columnList = "updated_at")
+        })
 @Data
 @NoArgsConstructor
 public class Appointment {
 
+    /**
+     * Ограничение-исключение в PostgreSQL: активные записи одного мастера не пересекаются по времени.
+     * Создается скриптом db/appointments-no-overlap.sql.
+     */
+    public static final String NO_OVERLAP_CONSTRAINT = "appointments_no_overlap";
+
+    /**
+     * Идентификатор из последовательности с шагом выделения 50:
+     * в отличие от IDENTITY, позволяет Hibernate объединять вставки в JDBC-батчи.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -35,12 +56,33 @@ public class Appointment {
     @JoinColumn(name = "barber_service_id", nullable = false)
     private BarberService barberService;
 
+    /**
+     * Мастер записи. Дублирует barberService.barber, чтобы пересечения
+     * проверялись индексом и ограничением по одной таблице, без join.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_appointments_barber"))
+    private Barber barber;
+
     /**
      * Дата и время начала записи.
      */
     @Column(name = "appointment_date_time", nullable = false)
     private LocalDateTime appointmentDateTime;
 
+    /**
+     * Дата и время окончания записи (начало + длительность услуги на момент записи).
+     */
+    @Column(name = "appointment_end_time", nullable = false)
+    private LocalDateTime appointmentEndTime;
+
+    /**
+     * Цена услуги на момент записи. Последующее изменение цены у мастера запись не меняет.
+     */
+    @Column(name = "price", nullable = false)
+    private Double price;
+
     /**
      * Статус записи.
      */
@@ -54,6 +96,18 @@ public class Appointment {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    /**
+     * Дата и время последнего изменения записи.
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
     /**
      * Возможные статусы записи.
      */
@@ -0,0 +1,39 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Сущность "Перерыв мастера" — повторяется каждую неделю в указанный день.
+ */
+@Entity
+@Table(name = "barber_breaks",
+        indexes = @Index(name = "idx_barber_breaks_barber", columnList = "barber_id"))
+@Data
+@NoArgsConstructor
+public class BarberBreak {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id", nullable = false)
+    @ToString.Exclude
+    private Barber barber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+}
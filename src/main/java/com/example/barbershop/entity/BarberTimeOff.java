@@ -0,0 +1,36 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сущность "Отсутствие мастера" (отпуск, больничный, отгул) на интервал [start, end).
+ */
+@Entity
+@Table(name = "barber_time_off",
+        indexes = @Index(name = "idx_barber_time_off_barber_end", columnList = "barber_id, end_date_time"))
+@Data
+@NoArgsConstructor
+public class BarberTimeOff {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id", nullable = false)
+    @ToString.Exclude
+    private Barber barber;
+
+    @Column(name = "start_date_time", nullable = false)
+    private LocalDateTime startDateTime;
+
+    @Column(name = "end_date_time", nullable = false)
+    private LocalDateTime endDateTime;
+
+    private String reason;
+}
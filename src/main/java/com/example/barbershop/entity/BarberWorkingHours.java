@@ -0,0 +1,41 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Сущность "Рабочие часы мастера" — шаблон на день недели.
+ * День недели без строки считается выходным. Если у мастера нет ни одной строки,
+ * действуют рабочие часы по умолчанию (barbershop.schedule.default-*).
+ */
+@Entity
+@Table(name = "barber_working_hours",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"barber_id", "day_of_week"}))
+@Data
+@NoArgsConstructor
+public class BarberWorkingHours {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id", nullable = false)
+    @ToString.Exclude
+    private Barber barber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+}
@@ -0,0 +1,41 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Скетч HyperLogLog различных клиентов мастера за один день приема.
+ * Хранится в компактном виде (см. {@code HyperLogLog#toBytes()}): день с десятком клиентов
+ * занимает несколько десятков байт.
+ */
+@Entity
+@Table(name = "barber_client_sketches",
+        uniqueConstraints = @UniqueConstraint(name = "uk_barber_client_sketches",
+                columnNames = {"stat_date", "barber_id"}))
+@Data
+@NoArgsConstructor
+public class ClientSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "barber_id", nullable = false)
+    private Long barberId;
+
+    /**
+     * День приема.
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 4096)
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
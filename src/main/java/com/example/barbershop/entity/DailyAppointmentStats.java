@@ -0,0 +1,57 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Дневная сводка записей: количество и сумма цен за день приема
+ * в разрезе мастер x услуга x статус. Строится из таблицы appointments
+ * задачей {@code DailyStatsRollupService} и используется отчетами вместо полного сканирования записей.
+ */
+@Entity
+@Table(name = "daily_appointment_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_appointment_stats",
+                columnNames = {"stat_date", "barber_id", "service_id", "status"}))
+@Data
+@NoArgsConstructor
+public class DailyAppointmentStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * День приема (дата appointment_date_time, а не дата создания записи).
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "barber_id", nullable = false)
+    private Long barberId;
+
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Appointment.AppointmentStatus status;
+
+    @Column(name = "appointments_count", nullable = false)
+    private Long appointmentsCount;
+
+    /**
+     * Сумма цен записей с этим статусом. Выручкой считается только сумма по COMPLETED.
+     */
+    @Column(nullable = false)
+    private Double revenue;
+
+    /**
+     * Когда день был пересчитан последний раз.
+     */
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
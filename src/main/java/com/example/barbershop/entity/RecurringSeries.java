@@ -0,0 +1,106 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Сущность "Серия повторяющихся записей" (например, "каждые 3 недели в 10:00").
+ * Отдельные записи серии в таблицу appointments не вставляются:
+ * вхождения вычисляются на лету только для запрашиваемого периода.
+ */
+@Entity
+@Table(name = "recurring_series",
+        indexes = @Index(name = "idx_recurring_series_barber_status", columnList = "barber_id, status"))
+@Data
+@NoArgsConstructor
+public class RecurringSeries {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Клиент, для которого создана серия.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id", nullable = false)
+    private User client;
+
+    /**
+     * Услуга мастера, на которую записывается клиент.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_service_id", nullable = false)
+    private BarberService barberService;
+
+    /**
+     * Мастер серии (дублирует barberService.barber для выборки серий мастера без join).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id", nullable = false)
+    private Barber barber;
+
+    /**
+     * Дата первого вхождения.
+     */
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    /**
+     * Время начала каждого вхождения.
+     */
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    /**
+     * Период повторения в неделях.
+     */
+    @Column(name = "interval_weeks", nullable = false)
+    private Integer intervalWeeks;
+
+    /**
+     * Дата, после которой вхождений нет (null — бессрочно).
+     */
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    /**
+     * Длительность вхождения (длительность услуги на момент создания серии).
+     */
+    @Column(name = "duration_minutes", nullable = false)
+    private Integer durationMinutes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SeriesStatus status;
+
+    /**
+     * Даты отдельно отмененных вхождений.
+     */
+    @ElementCollection
+    @CollectionTable(name = "recurring_series_skipped_dates", joinColumns = @JoinColumn(name = "series_id"))
+    @Column(name = "skipped_date", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<LocalDate> skippedDates = new HashSet<>();
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Возможные статусы серии.
+     */
+    public enum SeriesStatus {
+        ACTIVE,     // Вхождения занимают время мастера
+        CANCELLED   // Серия отменена целиком
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.barbershop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сущность "Заявка в лист ожидания".
+ * Клиент ждет освобождения времени на услугу в заданном окне —
+ * у конкретного мастера или у любого мастера, оказывающего услугу.
+ */
+@Entity
+@Table(name = "waitlist_entries",
+        indexes = @Index(name = "idx_waitlist_status_window", columnList = "status, window_end"))
+@Data
+@NoArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Клиент, ожидающий свободное время.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id", nullable = false)
+    private User client;
+
+    /**
+     * Желаемая услуга.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "service_id", nullable = false)
+    private ServiceItem service;
+
+    /**
+     * Желаемый мастер. Если не задан, подойдет любой мастер, оказывающий услугу.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id")
+    private Barber barber;
+
+    /**
+     * Окно, в которое должна целиком поместиться запись.
+     */
+    @Column(name = "window_start", nullable = false)
+    private LocalDateTime windowStart;
+
+    @Column(name = "window_end", nullable = false)
+    private LocalDateTime windowEnd;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status;
+
+    /**
+     * Запись, созданная из листа ожидания.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id")
+    private Appointment appointment;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Возможные статусы заявки.
+     */
+    public enum WaitlistStatus {
+        WAITING,    // Ожидает освобождения времени
+        BOOKED,     // Запись создана автоматически
+        CANCELLED   // Отменена клиентом
+    }
+}
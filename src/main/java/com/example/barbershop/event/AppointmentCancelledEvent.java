@@ -0,0 +1,10 @@
+package com.example.barbershop.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие "Запись отменена": у мастера освободился интервал [start, end).
+ */
+public record AppointmentCancelledEvent(Long appointmentId, Long barberId,
+                                        LocalDateTime start, LocalDateTime end) {
+}
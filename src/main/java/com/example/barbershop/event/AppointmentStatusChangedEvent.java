@@ -0,0 +1,30 @@
+package com.example.barbershop.event;
+
+import com.example.barbershop.entity.Appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие "Изменился статус записи". Для новой записи {@code previousStatus} равен null.
+ * Несет все, что нужно счетчикам, скетчам и гистограммам статистики, чтобы не обращаться к базе.
+ */
+public record AppointmentStatusChangedEvent(Long appointmentId, Long barberId, Long serviceId,
+                                            Long clientId, LocalDateTime appointmentDateTime,
+                                            LocalDateTime appointmentEndTime, LocalDateTime createdAt,
+                                            Appointment.AppointmentStatus previousStatus,
+                                            Appointment.AppointmentStatus newStatus,
+                                            Double price) {
+
+    public static AppointmentStatusChangedEvent created(Appointment appointment) {
+        return of(appointment, null);
+    }
+
+    public static AppointmentStatusChangedEvent of(Appointment appointment,
+                                                   Appointment.AppointmentStatus previousStatus) {
+        return new AppointmentStatusChangedEvent(appointment.getId(), appointment.getBarber().getId(),
+                appointment.getBarberService().getService().getId(),
+                appointment.getClient().getId(), appointment.getAppointmentDateTime(),
+                appointment.getAppointmentEndTime(), appointment.getCreatedAt(),
+                previousStatus, appointment.getStatus(), appointment.getPrice());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.barbershop.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие "Изменилось расписание мастера".
+ * Публикуется синхронно при любом изменении занятости мастера,
+ * чтобы производные кэши (карты занятости, списки свободных слотов) сбросили затронутые дни.
+ * Если {@code from} и {@code to} равны null, изменилось все расписание мастера,
+ * если {@code barberId} равен null — расписание всех мастеров.
+ */
+public record BarberScheduleChangedEvent(Long barberId, LocalDateTime from, LocalDateTime to) {
+
+    public static BarberScheduleChangedEvent wholeSchedule(Long barberId) {
+        return new BarberScheduleChangedEvent(barberId, null, null);
+    }
+
+    public static BarberScheduleChangedEvent allBarbers() {
+        return new BarberScheduleChangedEvent(null, null, null);
+    }
+
+    public boolean isAllBarbers() {
+        return barberId == null;
+    }
+
+    public boolean isWholeSchedule() {
+        return from == null || to == null;
+    }
+}
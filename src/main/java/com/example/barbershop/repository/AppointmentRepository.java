@@ -1,19 +1,63 @@
 package com.example.barbershop.repository;
 
+import com.example.barbershop.dto.AppointmentResponseDto;
 import com.example.barbershop.entity.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Appointment (Запись на прием).
  */
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
+
+    /**
+     * Проекция записи в AppointmentResponseDto: клиент, услуга и мастер читаются
+     * одним запросом с join вместо отдельного запроса на каждую ленивую связь.
+     */
+    String RESPONSE_DTO_SELECT = "SELECT new com.example.barbershop.dto.AppointmentResponseDto(" +
+            "a.id, a.appointmentDateTime, a.status, a.createdAt, " +
+            "c.id, c.email, c.firstName, c.lastName, " +
+            "s.id, s.name, a.price, bs.actualDurationMinutes, " +
+            "b.id, bu.email, bu.firstName, bu.lastName) " +
+            "FROM Appointment a " +
+            "JOIN a.client c " +
+            "JOIN a.barberService bs " +
+            "JOIN bs.service s " +
+            "JOIN a.barber b " +
+            "JOIN b.user bu ";
+
+    /**
+     * Все записи в виде DTO.
+     */
+    @Query(RESPONSE_DTO_SELECT + "ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentResponseDto> findAllResponseDtos();
+
+    /**
+     * Запись по ID в виде DTO.
+     */
+    @Query(RESPONSE_DTO_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentResponseDto> findResponseDtoById(@Param("id") Long id);
+
+    /**
+     * Записи клиента в виде DTO.
+     */
+    @Query(RESPONSE_DTO_SELECT + "WHERE c.id = :clientId ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentResponseDto> findResponseDtosByClientId(@Param("clientId") Long clientId);
+
+    /**
+     * Записи мастера в виде DTO.
+     */
+    @Query(RESPONSE_DTO_SELECT + "WHERE b.id = :barberId ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentResponseDto> findResponseDtosByBarberId(@Param("barberId") Long barberId);
 
     /**
      * Найти все записи клиента.
@@ -47,30 +91,42 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
      * Этот метод будет реализован в сервисе.
      */
     List<Appointment> findByBarberServiceId(Long barberServiceId);
-    long countByStatus(Appointment.AppointmentStatus status);
-    long countByCreatedAtAfter(LocalDateTime date);
 
-    @Query("SELECT COALESCE(SUM(bs.actualPrice), 0) FROM Appointment a " +
-            "JOIN a.barberService bs " +
-            "WHERE a.status = 'COMPLETED'")
-    Double calculateTotalRevenue();
+    /**
+     * Интервалы активных (не отмененных) записей мастера, заканчивающихся после указанного момента.
+     * Возвращает плоские строки [id, начало, конец] одним запросом, без загрузки сущностей.
+     */
+    @Query("SELECT a.id, a.appointmentDateTime, a.appointmentEndTime FROM Appointment a " +
+            "WHERE a.barber.id = :barberId AND a.status <> 'CANCELLED' " +
+            "AND a.appointmentEndTime > :from " +
+            "ORDER BY a.appointmentDateTime")
+    List<Object[]> findActiveIntervalsByBarber(@Param("barberId") Long barberId,
+                                               @Param("from") LocalDateTime from);
 
-    @Query("SELECT COALESCE(SUM(bs.actualPrice), 0) FROM Appointment a " +
-            "JOIN a.barberService bs " +
-            "WHERE a.status = 'COMPLETED' AND a.createdAt >= :date")
-    Double calculateRevenueAfterDate(@Param("date") LocalDateTime date);
+    /**
+     * Интервалы активных записей мастера, пересекающихся с [from, to).
+     */
+    @Query("SELECT a.id, a.appointmentDateTime, a.appointmentEndTime FROM Appointment a " +
+            "WHERE a.barber.id = :barberId AND a.status <> 'CANCELLED' " +
+            "AND a.appointmentDateTime < :to AND a.appointmentEndTime > :from " +
+            "ORDER BY a.appointmentDateTime")
+    List<Object[]> findActiveIntervalsByBarberBetween(@Param("barberId") Long barberId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
 
-    @Query("SELECT COALESCE(SUM(bs.actualPrice), 0) FROM Appointment a " +
-            "JOIN a.barberService bs " +
-            "WHERE a.status = 'COMPLETED' AND bs.barber.id = :barberId")
-    Double calculateRevenueByBarber(@Param("barberId") Long barberId);
+    /**
+     * Есть ли у мастера активная запись, пересекающаяся с [start, end).
+     * Использует индекс idx_appointments_barber_time.
+     */
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a " +
+            "WHERE a.barber.id = :barberId AND a.status <> 'CANCELLED' " +
+            "AND a.appointmentDateTime < :end AND a.appointmentEndTime > :start")
+    boolean existsOverlapping(@Param("barberId") Long barberId,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
 
-    @Query("SELECT bs.service.name, COUNT(a) as count FROM Appointment a " +
-            "JOIN a.barberService bs " +
-            "WHERE a.createdAt >= :date " +
-            "GROUP BY bs.service.name " +
-            "ORDER BY count DESC")
-    List<Object[]> findPopularServicesLast7Days(@Param("date") LocalDateTime date);
+    long countByStatus(Appointment.AppointmentStatus status);
+    long countByCreatedAtAfter(LocalDateTime date);
 
     // Вспомогательные методы для подсчета
     @Query("SELECT COUNT(a) FROM Appointment a " +
@@ -83,5 +139,53 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             "WHERE bs.service.id = :serviceId")
     long countByService(@Param("serviceId") Long serviceId);
 
+    /**
+     * Количество и сумма цен записей в разрезе мастер x услуга x статус:
+     * [id мастера, id услуги, статус, количество, сумма цен]. Источник для сверки счетчиков статистики.
+     */
+    @Query("SELECT bs.barber.id, bs.service.id, a.status, COUNT(a), COALESCE(SUM(a.price), 0) " +
+            "FROM Appointment a " +
+            "JOIN a.barberService bs " +
+            "GROUP BY bs.barber.id, bs.service.id, a.status")
+    List<Object[]> countByBarberServiceAndStatus();
+
+    /**
+     * Дни приема записей, измененных начиная с указанного момента.
+     * Источник инкрементального пересчета дневной сводки; использует индекс idx_appointments_updated_at.
+     */
+    @Query("SELECT DISTINCT CAST(a.appointmentDateTime AS LocalDate) FROM Appointment a " +
+            "WHERE a.updatedAt >= :since")
+    List<LocalDate> findChangedDaysSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Самая ранняя и самая поздняя дата приема: [min, max]. Границы полного пересчета сводки.
+     */
+    @Query("SELECT MIN(a.appointmentDateTime), MAX(a.appointmentDateTime) FROM Appointment a")
+    List<Object[]> findAppointmentDateRange();
+
+    /**
+     * Различные тройки [id мастера, день приема, id клиента]. Источник первичного построения скетчей клиентов.
+     */
+    @Query("SELECT DISTINCT a.barber.id, CAST(a.appointmentDateTime AS LocalDate), a.client.id FROM Appointment a")
+    List<Object[]> findDistinctBarberDayClients();
+
+    /**
+     * Все записи в виде [id мастера, id услуги, начало, конец, дата создания]. Читается потоком;
+     * источник первичного заполнения гистограмм записей.
+     */
+    @Query("SELECT a.barber.id, bs.service.id, a.appointmentDateTime, a.appointmentEndTime, a.createdAt " +
+            "FROM Appointment a " +
+            "JOIN a.barberService bs")
+    Stream<Object[]> streamBookingTimes();
+
+    /**
+     * Записи, созданные начиная с указанного момента: [дата создания, id услуги, id мастера].
+     * Источник заполнения счетчиков популярности при старте.
+     */
+    @Query("SELECT a.createdAt, bs.service.id, a.barber.id FROM Appointment a " +
+            "JOIN a.barberService bs " +
+            "WHERE a.createdAt >= :since")
+    List<Object[]> findBookingsCreatedSince(@Param("since") LocalDateTime since);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.dto.AppointmentFilter;
+import com.example.barbershop.dto.AppointmentResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Запросы к записям, которые собираются динамически.
+ */
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Страница записей по фильтру в порядке (appointmentDateTime, id), начиная строго после
+     * позиции (afterDateTime, afterId). Позиция null — первая страница.
+     * Поиск по ключу, а не OFFSET: любая страница стоит столько же, сколько первая.
+     */
+    List<AppointmentResponseDto> findPage(AppointmentFilter filter, LocalDateTime afterDateTime, Long afterId,
+                                          int limit);
+}
@@ -0,0 +1,66 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.dto.AppointmentFilter;
+import com.example.barbershop.dto.AppointmentResponseDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация {@link AppointmentRepositoryCustom}.
+ * В запрос попадают только заданные условия фильтра, чтобы PostgreSQL мог выбрать
+ * подходящий индекс (см. индексы сущности Appointment).
+ */
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentResponseDto> findPage(AppointmentFilter filter, LocalDateTime afterDateTime, Long afterId,
+                                                 int limit) {
+        StringBuilder jpql = new StringBuilder(AppointmentRepository.RESPONSE_DTO_SELECT).append("WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (filter.getStatus() != null) {
+            jpql.append(" AND a.status = :status");
+            parameters.put("status", filter.getStatus());
+        }
+        if (filter.getBarberId() != null) {
+            jpql.append(" AND a.barber.id = :barberId");
+            parameters.put("barberId", filter.getBarberId());
+        }
+        if (filter.getClientId() != null) {
+            jpql.append(" AND a.client.id = :clientId");
+            parameters.put("clientId", filter.getClientId());
+        }
+        if (filter.getFrom() != null) {
+            jpql.append(" AND a.appointmentDateTime >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" AND a.appointmentDateTime < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (afterDateTime != null) {
+            // Избыточная граница ">=" дает PostgreSQL начало диапазона для упорядоченного
+            // сканирования индекса с LIMIT; одно условие с OR такой границы не задает
+            jpql.append(" AND a.appointmentDateTime >= :afterDateTime" +
+                    " AND (a.appointmentDateTime > :afterDateTime" +
+                    " OR (a.appointmentDateTime = :afterDateTime AND a.id > :afterId))");
+            parameters.put("afterDateTime", afterDateTime);
+            parameters.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY a.appointmentDateTime, a.id");
+
+        TypedQuery<AppointmentResponseDto> query = entityManager.createQuery(jpql.toString(),
+                AppointmentResponseDto.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
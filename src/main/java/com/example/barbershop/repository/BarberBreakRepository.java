@@ -0,0 +1,16 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.BarberBreak;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий для работы с перерывами мастеров.
+ */
+@Repository
+public interface BarberBreakRepository extends JpaRepository<BarberBreak, Long> {
+
+    List<BarberBreak> findByBarberIdOrderByDayOfWeekAscStartTimeAsc(Long barberId);
+}
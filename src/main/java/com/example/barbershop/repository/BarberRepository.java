@@ -2,6 +2,7 @@ package com.example.barbershop.repository;
 
 import com.example.barbershop.entity.Barber;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +23,10 @@ public interface BarberRepository extends JpaRepository<Barber, Long> {
      * Найти всех парикмахеров по специализации.
      */
     List<Barber> findBySpecializationContainingIgnoreCase(String specialization);
+
+    /**
+     * Все парикмахеры вместе с пользователями одним запросом.
+     */
+    @Query("SELECT b FROM Barber b JOIN FETCH b.user")
+    List<Barber> findAllWithUser();
 }
\ No newline at end of file
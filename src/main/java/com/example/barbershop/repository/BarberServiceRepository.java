@@ -2,6 +2,7 @@ package com.example.barbershop.repository;
 
 import com.example.barbershop.entity.BarberService;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,4 +28,10 @@ public interface BarberServiceRepository extends JpaRepository<BarberService, Lo
      */
     boolean existsByBarberIdAndServiceId(Long barberId, Long serviceId);
     long countByServiceId(Long serviceId);
+
+    /**
+     * Количество мастеров по каждой услуге одним запросом: [id услуги, количество].
+     */
+    @Query("SELECT bs.service.id, COUNT(bs) FROM BarberService bs GROUP BY bs.service.id")
+    List<Object[]> countBarbersGroupedByService();
 }
\ No newline at end of file
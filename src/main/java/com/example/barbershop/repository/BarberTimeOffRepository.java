@@ -0,0 +1,20 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.BarberTimeOff;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с отсутствиями мастеров.
+ */
+@Repository
+public interface BarberTimeOffRepository extends JpaRepository<BarberTimeOff, Long> {
+
+    /**
+     * Отсутствия мастера, которые заканчиваются позже указанного момента.
+     */
+    List<BarberTimeOff> findByBarberIdAndEndDateTimeAfterOrderByStartDateTime(Long barberId, LocalDateTime after);
+}
@@ -0,0 +1,20 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.BarberWorkingHours;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с рабочими часами мастеров.
+ */
+@Repository
+public interface BarberWorkingHoursRepository extends JpaRepository<BarberWorkingHours, Long> {
+
+    List<BarberWorkingHours> findByBarberId(Long barberId);
+
+    Optional<BarberWorkingHours> findByBarberIdAndDayOfWeek(Long barberId, DayOfWeek dayOfWeek);
+}
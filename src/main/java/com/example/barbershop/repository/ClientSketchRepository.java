@@ -0,0 +1,35 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.ClientSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий скетчей различных клиентов по мастерам и дням.
+ */
+@Repository
+public interface ClientSketchRepository extends JpaRepository<ClientSketch, Long> {
+
+    Optional<ClientSketch> findByBarberIdAndDay(Long barberId, LocalDate day);
+
+    /**
+     * Скетчи всех мастеров за дни [from, to): [id мастера, данные скетча]. Читается потоком.
+     */
+    @Query("SELECT s.barberId, s.registers FROM ClientSketch s WHERE s.day >= :from AND s.day < :to")
+    Stream<Object[]> streamByDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Скетчи указанных мастеров за дни [from, to): [id мастера, данные скетча]. Читается потоком.
+     */
+    @Query("SELECT s.barberId, s.registers FROM ClientSketch s " +
+            "WHERE s.day >= :from AND s.day < :to AND s.barberId IN :barberIds")
+    Stream<Object[]> streamByDaysAndBarbers(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                            @Param("barberIds") Collection<Long> barberIds);
+}
@@ -0,0 +1,95 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.DailyAppointmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий дневной сводки записей (daily_appointment_stats).
+ */
+@Repository
+public interface DailyAppointmentStatsRepository extends JpaRepository<DailyAppointmentStats, Long> {
+
+    /**
+     * Удалить сводку за дни [from, to).
+     */
+    @Modifying
+    @Query("DELETE FROM DailyAppointmentStats d WHERE d.day >= :from AND d.day < :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Пересчитать сводку по записям с началом в [from, to) одним INSERT ... SELECT на стороне базы.
+     * Перед вызовом строки за эти дни должны быть удалены.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_appointment_stats " +
+            "(stat_date, barber_id, service_id, status, appointments_count, revenue, refreshed_at) " +
+            "SELECT CAST(a.appointment_date_time AS date), a.barber_id, bs.service_id, a.status, " +
+            "COUNT(*), COALESCE(SUM(a.price), 0), :refreshedAt " +
+            "FROM appointments a " +
+            "JOIN barber_services bs ON bs.id = a.barber_service_id " +
+            "WHERE a.appointment_date_time >= :from AND a.appointment_date_time < :to " +
+            "GROUP BY CAST(a.appointment_date_time AS date), a.barber_id, bs.service_id, a.status",
+            nativeQuery = true)
+    int insertDays(@Param("from") LocalDateTime from,
+                   @Param("to") LocalDateTime to,
+                   @Param("refreshedAt") LocalDateTime refreshedAt);
+
+    /**
+     * Взять advisory-блокировку PostgreSQL до конца текущей транзакции без ожидания.
+     * false — блокировку держит другая транзакция (другой экземпляр приложения).
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+
+    /**
+     * Время последнего пересчета; null, если сводка пуста.
+     */
+    @Query("SELECT MAX(d.refreshedAt) FROM DailyAppointmentStats d")
+    LocalDateTime findLastRefreshedAt();
+
+    /**
+     * Количество записей с днем приема в [from, to).
+     */
+    @Query("SELECT COALESCE(SUM(d.appointmentsCount), 0) FROM DailyAppointmentStats d " +
+            "WHERE d.day >= :from AND d.day < :to")
+    long sumAppointments(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Выручка по завершенным записям с днем приема в [from, to).
+     */
+    @Query("SELECT COALESCE(SUM(d.revenue), 0) FROM DailyAppointmentStats d " +
+            "WHERE d.status = 'COMPLETED' AND d.day >= :from AND d.day < :to")
+    Double sumCompletedRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Сводка за дни [from, to) по дням и статусам: [день, статус, количество, сумма цен].
+     */
+    @Query("SELECT d.day, d.status, SUM(d.appointmentsCount), SUM(d.revenue) FROM DailyAppointmentStats d " +
+            "WHERE d.day >= :from AND d.day < :to " +
+            "GROUP BY d.day, d.status")
+    List<Object[]> sumByDayAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Сводка за дни [from, to) по дням, мастерам и статусам: [день, id мастера, статус, количество, сумма цен].
+     */
+    @Query("SELECT d.day, d.barberId, d.status, SUM(d.appointmentsCount), SUM(d.revenue) FROM DailyAppointmentStats d " +
+            "WHERE d.day >= :from AND d.day < :to " +
+            "GROUP BY d.day, d.barberId, d.status")
+    List<Object[]> sumByDayBarberAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Сводка за дни [from, to) по дням, услугам и статусам: [день, id услуги, статус, количество, сумма цен].
+     */
+    @Query("SELECT d.day, d.serviceId, d.status, SUM(d.appointmentsCount), SUM(d.revenue) FROM DailyAppointmentStats d " +
+            "WHERE d.day >= :from AND d.day < :to " +
+            "GROUP BY d.day, d.serviceId, d.status")
+    List<Object[]> sumByDayServiceAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,28 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.RecurringSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сериями повторяющихся записей.
+ */
+@Repository
+public interface RecurringSeriesRepository extends JpaRepository<RecurringSeries, Long> {
+
+    /**
+     * Найти все серии клиента.
+     */
+    List<RecurringSeries> findByClientIdOrderByCreatedAtDesc(Long clientId);
+
+    /**
+     * Активные серии мастера вместе с отмененными датами (одним запросом).
+     */
+    @Query("SELECT DISTINCT s FROM RecurringSeries s LEFT JOIN FETCH s.skippedDates " +
+            "WHERE s.barber.id = :barberId AND s.status = 'ACTIVE'")
+    List<RecurringSeries> findActiveByBarberId(@Param("barberId") Long barberId);
+}
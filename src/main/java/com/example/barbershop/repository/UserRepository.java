@@ -2,9 +2,11 @@ package com.example.barbershop.repository;
 
 import com.example.barbershop.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,4 +29,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     long countByRole(User.Role role);
 
+    /**
+     * Количество пользователей по ролям одним запросом: [роль, количество].
+     */
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+
 }
\ No newline at end of file
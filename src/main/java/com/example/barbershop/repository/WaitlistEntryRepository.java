@@ -0,0 +1,31 @@
+package com.example.barbershop.repository;
+
+import com.example.barbershop.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с листом ожидания.
+ */
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Найти все заявки клиента.
+     */
+    List<WaitlistEntry> findByClientIdOrderByCreatedAtDesc(Long clientId);
+
+    /**
+     * Активные заявки, окно которых еще не закончилось.
+     * Возвращает плоские строки [id, clientId, serviceId, barberId, windowStart, windowEnd, createdAt].
+     */
+    @Query("SELECT w.id, w.client.id, w.service.id, w.barber.id, w.windowStart, w.windowEnd, w.createdAt " +
+            "FROM WaitlistEntry w " +
+            "WHERE w.status = 'WAITING' AND w.windowEnd > :now")
+    List<Object[]> findActiveCandidates(@Param("now") LocalDateTime now);
+}
@@ -1,18 +1,32 @@
 package com.example.barbershop.rest;
 
 import com.example.barbershop.dto.AppointmentDto;
+import com.example.barbershop.dto.AppointmentFilter;
 import com.example.barbershop.dto.AppointmentResponseDto; // <-- Добавить импорт
+import com.example.barbershop.dto.BatchBookingResultDto;
 import com.example.barbershop.entity.*;
 import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.service.AppointmentExportService;
 import com.example.barbershop.service.AppointmentService;
+import com.example.barbershop.service.BatchConflictException;
 import com.example.barbershop.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST контроллер для управления записями на прием.
@@ -25,14 +39,76 @@ public class AppointmentController {
     private final BarberServiceRepository barberServiceRepository;
     private final AppointmentService appointmentService;
     private final UserService userService;
+    private final AppointmentExportService appointmentExportService;
 
     /**
-     * Получить все записи (только для администраторов).
-     * GET /api/appointments
+     * Получить записи постранично (только для администраторов).
+     * GET /api/appointments?status=SCHEDULED&barberId=1&clientId=2&from=...&to=...&limit=50&cursor=...
+     * Для следующей страницы передайте nextCursor из ответа.
      */
     @GetMapping
-    public List<AppointmentResponseDto> getAllAppointments() { // <-- Изменить тип возврата
-        return appointmentService.getAllAppointmentsAsDto(); // <-- Использовать DTO метод
+    public ResponseEntity<?> getAllAppointments(
+            @RequestParam(required = false) Appointment.AppointmentStatus status,
+            @RequestParam(required = false) Long barberId,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            AppointmentFilter filter = toFilter(status, barberId, clientId, from, to);
+            return ResponseEntity.ok(appointmentService.getAppointmentsPage(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Выгрузить записи файлом (только для администраторов).
+     * GET /api/appointments/export?format=csv|ndjson&gzip=true&status=...&barberId=...&from=...&to=...
+     * Ответ пишется потоком по мере чтения строк из базы, без загрузки всей выборки в память.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Appointment.AppointmentStatus status,
+            @RequestParam(required = false) Long barberId,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Неизвестный формат выгрузки: " + format);
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        AppointmentFilter filter = toFilter(status, barberId, clientId, from, to);
+        String fileName = csv ? "appointments.csv" : "appointments.ndjson";
+        MediaType contentType = csv
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                writeExport(csv, filter, gzipOut);
+                gzipOut.finish();
+            } else {
+                writeExport(csv, filter, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + (gzip ? ".gz" : "") + "\"")
+                .body(body);
     }
 
     /**
@@ -42,9 +118,7 @@ public class AppointmentController {
     @GetMapping("/{id}")
     public ResponseEntity<AppointmentResponseDto> getAppointmentById(@PathVariable Long id) { // <-- Изменить тип
         try {
-            Appointment appointment = appointmentService.findById(id);
-            AppointmentResponseDto dto = convertToDto(appointment); // <-- Конвертировать в DTO
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.ok(appointmentService.getAppointmentDto(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -67,7 +141,7 @@ public class AppointmentController {
             );
 
 
-            AppointmentResponseDto responseDto = convertToDto(appointment);
+            AppointmentResponseDto responseDto = appointmentService.getAppointmentDto(appointment.getId());
             return ResponseEntity.ok(responseDto);
 
         } catch (IllegalArgumentException e) {
@@ -83,6 +157,35 @@ public class AppointmentController {
         }
     }
 
+    /**
+     * Создать несколько записей за один запрос.
+     * POST /api/appointments/batch
+     * Возвращает результат по каждой заявке: CREATED, CONFLICT или ERROR.
+     * Если время заняли параллельно уже при сохранении пакета, возвращает 409 — пакет нужно повторить.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createAppointmentsBatch(@RequestBody List<AppointmentDto> appointmentDtos) {
+        try {
+            BatchBookingResultDto result = appointmentService.createAppointmentsBatch(appointmentDtos);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (BatchConflictException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (Exception e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Ошибка пакетного создания записей: " + e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
     /**
      * Отменить запись.
      * PUT /api/appointments/{id}/cancel
@@ -91,8 +194,7 @@ public class AppointmentController {
     public ResponseEntity<?> cancelAppointment(@PathVariable Long id) {
         try {
             Appointment appointment = appointmentService.cancelAppointment(id);
-            AppointmentResponseDto responseDto = convertToDto(appointment); // <-- Конвертировать в DTO
-            return ResponseEntity.ok(responseDto);
+            return ResponseEntity.ok(appointmentService.getAppointmentDto(appointment.getId()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -104,10 +206,7 @@ public class AppointmentController {
      */
     @GetMapping("/client/{clientId}")
     public List<AppointmentResponseDto> getClientAppointments(@PathVariable Long clientId) { // <-- Изменить тип
-        List<Appointment> appointments = appointmentService.getClientAppointments(clientId);
-        return appointments.stream()
-                .map(this::convertToDto) // <-- Конвертировать каждую запись
-                .toList();
+        return appointmentService.getClientAppointments(clientId);
     }
 
     /**
@@ -116,82 +215,7 @@ public class AppointmentController {
      */
     @GetMapping("/barber/{barberId}")
     public List<AppointmentResponseDto> getBarberAppointments(@PathVariable Long barberId) { // <-- Изменить тип
-        List<Appointment> appointments = appointmentService.findAppointmentsByBarber(barberId);
-        return appointments.stream()
-                .map(this::convertToDto) // <-- Конвертировать каждую запись
-                .toList();
-    }
-
-    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
-
-    /**
-     * Конвертирует Appointment entity в AppointmentResponseDto.
-     * (Дублирует логику из сервиса, но можно вынести в утилитный класс)
-     */
-    private AppointmentResponseDto convertToDto(Appointment appointment) {
-        AppointmentResponseDto dto = new AppointmentResponseDto();
-
-        // Основные поля
-        dto.setId(appointment.getId());
-        dto.setAppointmentDateTime(appointment.getAppointmentDateTime());
-        dto.setStatus(appointment.getStatus().name());
-        dto.setCreatedAt(appointment.getCreatedAt());
-
-        // Информация о клиенте
-        if (appointment.getClient() != null) {
-            User client = appointment.getClient();
-            dto.setClientId(client.getId());
-            dto.setClientEmail(client.getEmail());
-
-            // Объединяем имя и фамилию
-            String clientFullName = "";
-            if (client.getFirstName() != null) {
-                clientFullName += client.getFirstName();
-            }
-            if (client.getLastName() != null) {
-                if (!clientFullName.isEmpty()) {
-                    clientFullName += " ";
-                }
-                clientFullName += client.getLastName();
-            }
-            dto.setClientName(clientFullName.isEmpty() ? client.getEmail() : clientFullName);
-        }
-
-        // Информация об услуге и мастере
-        if (appointment.getBarberService() != null) {
-            BarberService barberService = appointment.getBarberService();
-
-            // Услуга
-            if (barberService.getService() != null) {
-                ServiceItem service = barberService.getService();
-                dto.setServiceId(service.getId());
-                dto.setServiceName(service.getName());
-                dto.setServicePrice(service.getBasePrice());
-            }
-
-            // Мастер
-            if (barberService.getBarber() != null) {
-                Barber barber = barberService.getBarber();
-                dto.setBarberId(barber.getId());
-
-                if (barber.getUser() != null) {
-                    User barberUser = barber.getUser();
-                    String barberFullName = "";
-                    if (barberUser.getFirstName() != null) {
-                        barberFullName += barberUser.getFirstName();
-                    }
-                    if (barberUser.getLastName() != null) {
-                        if (!barberFullName.isEmpty()) {
-                            barberFullName += " ";
-                        }
-                        barberFullName += barberUser.getLastName();
-                    }
-                    dto.setBarberName(barberFullName.isEmpty() ? barberUser.getEmail() : barberFullName);
-                }
-            }
-        }
-
-        return dto;
+        return appointmentService.findAppointmentsByBarber(barberId);
     }
 
     /**
@@ -213,4 +237,23 @@ public class AppointmentController {
             return ResponseEntity.badRequest().body("Ошибка: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private void writeExport(boolean csv, AppointmentFilter filter, OutputStream out) throws IOException {
+        if (csv) {
+            appointmentExportService.exportCsv(filter, out);
+        } else {
+            appointmentExportService.exportNdjson(filter, out);
+        }
+    }
+
+    private static AppointmentFilter toFilter(Appointment.AppointmentStatus status, Long barberId, Long clientId,
+                                              LocalDateTime from, LocalDateTime to) {
+        AppointmentFilter filter = new AppointmentFilter();
+        filter.setStatus(status);
+        filter.setBarberId(barberId);
+        filter.setClientId(clientId);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.barbershop.rest;
 
 import com.example.barbershop.dto.BarberServiceDto;
-import com.example.barbershop.entity.BarberService;
-import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.service.CatalogResponseCache;
+import com.example.barbershop.service.CatalogSnapshot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,34 +20,47 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BarberServiceController {
 
-    private final BarberServiceRepository barberServiceRepository;
+    private final CatalogResponseCache catalogResponseCache;
 
+    /**
+     * Все услуги мастеров. JSON строится из снимка каталога один раз на его версию;
+     * при совпадении If-None-Match — 304.
+     */
     @GetMapping
-    public List<BarberServiceDto> getAllBarberServices() {
-        return barberServiceRepository.findAll().stream()
-                .map(this::convertToDto)
+    public ResponseEntity<byte[]> getAllBarberServices(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogResponseCache.CatalogResponse response =
+                catalogResponseCache.get("barber-services", this::convertToDtos);
+        return CatalogResponses.toResponse(response, ifNoneMatch, acceptEncoding);
+    }
+
+    private List<BarberServiceDto> convertToDtos(CatalogSnapshot catalog) {
+        return catalog.getBarberServices().stream()
+                .map(barberService -> convertToDto(catalog, barberService))
                 .collect(Collectors.toList());
     }
 
-    private BarberServiceDto convertToDto(BarberService barberService) {
+    private BarberServiceDto convertToDto(CatalogSnapshot catalog, CatalogSnapshot.BarberServiceEntry barberService) {
         BarberServiceDto dto = new BarberServiceDto();
-        dto.setId(barberService.getId());
+        dto.setId(barberService.id());
 
-        if (barberService.getBarber() != null) {
-            dto.setBarberId(barberService.getBarber().getId());
-            dto.setBarberName(barberService.getBarber().getUser().getFirstName() + " " +
-                    barberService.getBarber().getUser().getLastName());
-            dto.setBarberSpecialization(barberService.getBarber().getSpecialization());
+        CatalogSnapshot.BarberEntry barber = catalog.findBarber(barberService.barberId());
+        if (barber != null) {
+            dto.setBarberId(barber.id());
+            dto.setBarberName(barber.fullName());
+            dto.setBarberSpecialization(barber.specialization());
         }
 
-        if (barberService.getService() != null) {
-            dto.setServiceId(barberService.getService().getId());
-            dto.setServiceName(barberService.getService().getName());
-            dto.setServiceDescription(barberService.getService().getDescription());
+        CatalogSnapshot.ServiceEntry service = catalog.findService(barberService.serviceId());
+        if (service != null) {
+            dto.setServiceId(service.id());
+            dto.setServiceName(service.name());
+            dto.setServiceDescription(service.description());
         }
 
-        dto.setActualPrice(BigDecimal.valueOf(barberService.getActualPrice()));
-        dto.setActualDurationMinutes(barberService.getActualDurationMinutes());
+        dto.setActualPrice(BigDecimal.valueOf(barberService.actualPrice()));
+        dto.setActualDurationMinutes(barberService.actualDurationMinutes());
 
         return dto;
     }
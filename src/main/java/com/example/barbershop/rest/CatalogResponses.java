@@ -0,0 +1,60 @@
+package com.example.barbershop.rest;
+
+import com.example.barbershop.service.CatalogResponseCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Отдача готовых ответов каталога с поддержкой If-None-Match и gzip.
+ */
+final class CatalogResponses {
+
+    private CatalogResponses() {
+    }
+
+    /**
+     * 304 при совпадении ETag, иначе закэшированные байты — сжатые, если клиент принимает gzip.
+     */
+    static ResponseEntity<byte[]> toResponse(CatalogResponseCache.CatalogResponse response,
+                                             String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? response.gzipEtag() : response.etag();
+
+        // no-cache: браузер хранит ответ, но перед использованием переспрашивает сервер по ETag
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzippedJson());
+        }
+        return builder.body(response.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            // gzip;q=0 — клиент явно отказывается от сжатия
+            return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.barbershop.rest;
+
+import com.example.barbershop.dto.RecurringSeriesDto;
+import com.example.barbershop.dto.RecurringSeriesRequest;
+import com.example.barbershop.service.RecurringSeriesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST контроллер для серий повторяющихся записей.
+ */
+@RestController
+@RequestMapping("/api/series")
+@RequiredArgsConstructor
+public class RecurringSeriesController {
+
+    private final RecurringSeriesService recurringSeriesService;
+
+    /**
+     * Создать серию.
+     * POST /api/series
+     */
+    @PostMapping
+    public ResponseEntity<?> createSeries(@RequestBody RecurringSeriesRequest request) {
+        try {
+            return ResponseEntity.ok(recurringSeriesService.createSeries(request));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * Получить серии клиента.
+     * GET /api/series/client/{clientId}
+     */
+    @GetMapping("/client/{clientId}")
+    public List<RecurringSeriesDto> getClientSeries(@PathVariable Long clientId) {
+        return recurringSeriesService.getClientSeries(clientId);
+    }
+
+    /**
+     * Получить вхождения серии за период.
+     * GET /api/series/{id}/occurrences?from=2025-01-01&to=2025-03-31
+     */
+    @GetMapping("/{id}/occurrences")
+    public ResponseEntity<List<LocalDateTime>> getOccurrences(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(recurringSeriesService.getOccurrences(id, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Отменить одно вхождение.
+     * PUT /api/series/{id}/skip?date=2025-02-10
+     */
+    @PutMapping("/{id}/skip")
+    public ResponseEntity<?> skipOccurrence(@PathVariable Long id,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(recurringSeriesService.skipOccurrence(id, date));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * Отменить серию целиком.
+     * PUT /api/series/{id}/cancel
+     */
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelSeries(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(recurringSeriesService.cancelSeries(id));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", e.getMessage());
+        errorResponse.put("status", "ERROR");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.barbershop.rest;
 
 import com.example.barbershop.entity.ServiceItem;
-import com.example.barbershop.service.ServiceCatalogService;
+import com.example.barbershop.service.CatalogResponseCache;
+import com.example.barbershop.service.CatalogSnapshot;
+import com.example.barbershop.service.CatalogSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * REST контроллер для работы с услугами парикмахерской.
  * Предоставляет API для получения информации об услугах.
@@ -16,15 +18,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ServiceController {
 
-    private final ServiceCatalogService serviceCatalogService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogResponseCache catalogResponseCache;
 
     /**
      * Получить список всех услуг.
      * GET /api/services
+     * Отдается заранее сериализованный JSON; при совпадении If-None-Match — 304.
      */
     @GetMapping
-    public List<ServiceItem> getAllServices() {
-        return serviceCatalogService.getAllServices();
+    public ResponseEntity<byte[]> getAllServices(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogResponseCache.CatalogResponse response =
+                catalogResponseCache.get("services", CatalogSnapshot::getServices);
+        return CatalogResponses.toResponse(response, ifNoneMatch, acceptEncoding);
     }
 
     /**
@@ -32,8 +40,12 @@ public class ServiceController {
      * GET /api/services/{id}
      */
     @GetMapping("/{id}")
-    public ServiceItem getServiceById(@PathVariable Long id) {
-        return serviceCatalogService.getServiceById(id);
+    public CatalogSnapshot.ServiceEntry getServiceById(@PathVariable Long id) {
+        CatalogSnapshot.ServiceEntry service = catalogSnapshotService.get().findService(id);
+        if (service == null) {
+            throw new IllegalArgumentException("Услуга не найдена");
+        }
+        return service;
     }
 
     /**
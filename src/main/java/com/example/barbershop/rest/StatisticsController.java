@@ -0,0 +1,123 @@
+package com.example.barbershop.rest;
+
+import com.example.barbershop.service.BookingHistograms;
+import com.example.barbershop.service.ClientSketchService;
+import com.example.barbershop.service.PopularityTracker;
+import com.example.barbershop.service.StatisticsService;
+import com.example.barbershop.service.TimeSeriesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * REST контроллер статистики для администратора.
+ */
+@RestController
+@RequestMapping("/api/statistics")
+@RequiredArgsConstructor
+public class StatisticsController {
+
+    private final TimeSeriesService timeSeriesService;
+    private final ClientSketchService clientSketchService;
+    private final StatisticsService statisticsService;
+
+    /**
+     * Временной ряд записей, завершений, отмен и выручки.
+     * GET /api/statistics/timeseries?from=2025-01-01&to=2025-12-31&granularity=day|week|month&groupBy=none|barber|service
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "none") String groupBy) {
+        try {
+            return ResponseEntity.ok(timeSeriesService.getTimeSeries(from, to,
+                    parse(TimeSeriesService.Granularity.class, granularity, "Неизвестный размер интервала: "),
+                    parse(TimeSeriesService.GroupBy.class, groupBy, "Неизвестная разбивка: ")));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Оценка числа различных клиентов за период: всего и по мастерам.
+     * GET /api/statistics/unique-clients?from=2025-01-01&to=2025-03-31&barberId=1&barberId=2
+     */
+    @GetMapping("/unique-clients")
+    public ResponseEntity<?> getUniqueClients(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> barberId) {
+        try {
+            return ResponseEntity.ok(clientSketchService.countUniqueClients(from, to, barberId));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Перцентили p50/p90/p99 в минутах: за сколько до приема записываются или сколько длится прием.
+     * GET /api/statistics/histograms?metric=lead-time|duration&groupBy=none|barber|service
+     */
+    @GetMapping("/histograms")
+    public ResponseEntity<?> getHistograms(
+            @RequestParam(defaultValue = "lead-time") String metric,
+            @RequestParam(defaultValue = "none") String groupBy) {
+        try {
+            return ResponseEntity.ok(statisticsService.getDistribution(
+                    parse(BookingHistograms.Metric.class, metric.replace('-', '_'), "Неизвестная величина: "),
+                    parse(TimeSeriesService.GroupBy.class, groupBy, "Неизвестная разбивка: ")));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Самые популярные услуги или мастера по новым записям за последний час, день или неделю.
+     * GET /api/statistics/top?dimension=services|barbers&window=hour|day|week&k=10
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> getTop(
+            @RequestParam(defaultValue = "services") String dimension,
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int k) {
+        try {
+            if (k < 1 || k > PopularityTracker.CAPACITY) {
+                throw new IllegalArgumentException("k должно быть от 1 до " + PopularityTracker.CAPACITY);
+            }
+            return ResponseEntity.ok(statisticsService.getTop(
+                    parse(PopularityTracker.Dimension.class, dimension, "Неизвестное измерение: "),
+                    parse(PopularityTracker.Window.class, window, "Неизвестное окно: "), k));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String errorPrefix) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(errorPrefix + value);
+        }
+    }
+}
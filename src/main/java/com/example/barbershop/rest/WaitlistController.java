@@ -0,0 +1,61 @@
+package com.example.barbershop.rest;
+
+import com.example.barbershop.dto.WaitlistEntryDto;
+import com.example.barbershop.dto.WaitlistRequest;
+import com.example.barbershop.service.WaitlistService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST контроллер для листа ожидания.
+ */
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    /**
+     * Встать в лист ожидания.
+     * POST /api/waitlist
+     */
+    @PostMapping
+    public ResponseEntity<?> register(@RequestBody WaitlistRequest request) {
+        try {
+            return ResponseEntity.ok(waitlistService.register(request));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Получить заявки клиента.
+     * GET /api/waitlist/client/{clientId}
+     */
+    @GetMapping("/client/{clientId}")
+    public List<WaitlistEntryDto> getClientEntries(@PathVariable Long clientId) {
+        return waitlistService.getClientEntries(clientId);
+    }
+
+    /**
+     * Отменить заявку.
+     * PUT /api/waitlist/{id}/cancel
+     */
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(waitlistService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Счетчики записей в памяти: количество по статусам и выручка по завершенным записям
+ * (в копейках) — всего, по мастерам и по услугам.
+ * Заполняются из базы при старте, дальше обновляются событиями создания и смены статуса
+ * после коммита. Периодическая сверка с базой подменяет счетчики целиком и исправляет
+ * расхождения (изменения в обход сервиса, потерянные события).
+ * <p>
+ * Сверка не может отличить изменение, закоммиченное до ее запроса, от закоммиченного после:
+ * в первом случае оно уже есть в пересчете, во втором — нет. Поэтому подмена выполняется
+ * только если за время запроса не было незавершенных транзакций со сменой статуса, иначе
+ * запрос повторяется; если записи идут непрерывно, сверка откладывается до следующего запуска.
+ * Изменения без транзакции (fallback) применяются сразу и в этой проверке не участвуют.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentCounters {
+
+    private static final Appointment.AppointmentStatus[] STATUSES = Appointment.AppointmentStatus.values();
+    private static final int MAX_RECONCILE_ATTEMPTS = 5;
+    private static final long RECONCILE_RETRY_PAUSE_MS = 100;
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final AtomicReference<Aggregate> current = new AtomicReference<>(new Aggregate());
+
+    // Транзакции, опубликовавшие смену статуса и еще не завершившиеся, и число завершенных
+    private final AtomicLong inFlightChanges = new AtomicLong();
+    private final AtomicLong completedChanges = new AtomicLong();
+    // Применение события и подмена счетчиков при сверке не пересекаются
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile boolean seeded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Сверить счетчики с базой и заменить их пересчитанными.
+     */
+    @Scheduled(initialDelayString = "${barbershop.stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${barbershop.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        for (int attempt = 1; attempt <= MAX_RECONCILE_ATTEMPTS; attempt++) {
+            long completedBefore = completedChanges.get();
+            boolean quietBefore = inFlightChanges.get() == 0;
+            Aggregate loaded = load();
+
+            swapLock.writeLock().lock();
+            try {
+                // Смена статуса, начатая до запроса или закоммиченная во время него, могла попасть
+                // в пересчет, а могла и нет — такой пересчет не подменяет счетчики
+                boolean quiet = quietBefore && inFlightChanges.get() == 0
+                        && completedChanges.get() == completedBefore;
+                // Первое заполнение нужно в любом случае, иначе счетчики пусты до следующей сверки
+                if (quiet || (!seeded && attempt == MAX_RECONCILE_ATTEMPTS)) {
+                    swap(loaded);
+                    seeded = true;
+                    return;
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            if (attempt < MAX_RECONCILE_ATTEMPTS && !pause()) {
+                return;
+            }
+        }
+        log.warn("Сверка счетчиков записей отложена: {} попыток пересеклись с изменением статусов",
+                MAX_RECONCILE_ATTEMPTS);
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(RECONCILE_RETRY_PAUSE_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Aggregate load() {
+        Aggregate loaded = new Aggregate();
+        for (Object[] row : appointmentRepository.countByBarberServiceAndStatus()) {
+            Appointment.AppointmentStatus status = (Appointment.AppointmentStatus) row[2];
+            long count = ((Number) row[3]).longValue();
+            long revenueCents = status == Appointment.AppointmentStatus.COMPLETED
+                    ? toCents(((Number) row[4]).doubleValue()) : 0;
+            loaded.add((Long) row[0], (Long) row[1], status, count, revenueCents);
+        }
+        return loaded;
+    }
+
+    private void swap(Aggregate loaded) {
+        Aggregate previous = current.getAndSet(loaded);
+        Counts before = previous.totals.snapshot();
+        Counts after = loaded.totals.snapshot();
+        if (!before.equals(after)) {
+            log.info("Сверка счетчиков записей: {} -> {}", before, after);
+        }
+    }
+
+    /**
+     * Смена статуса учитывается после коммита. Незавершенная транзакция отмечается сразу
+     * при публикации события, чтобы сверка знала о ней еще до коммита.
+     */
+    @EventListener
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        if (event.previousStatus() == event.newStatus()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(event);
+            completedChanges.incrementAndGet();
+            return;
+        }
+        inFlightChanges.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply(event);
+                    }
+                } finally {
+                    completedChanges.incrementAndGet();
+                    inFlightChanges.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void apply(AppointmentStatusChangedEvent event) {
+        long cents = event.price() != null ? toCents(event.price()) : 0;
+        swapLock.readLock().lock();
+        try {
+            Aggregate aggregate = current.get();
+            if (event.previousStatus() != null) {
+                aggregate.add(event.barberId(), event.serviceId(), event.previousStatus(), -1,
+                        event.previousStatus() == Appointment.AppointmentStatus.COMPLETED ? -cents : 0);
+            }
+            aggregate.add(event.barberId(), event.serviceId(), event.newStatus(), 1,
+                    event.newStatus() == Appointment.AppointmentStatus.COMPLETED ? cents : 0);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Счетчики по всем записям.
+     */
+    public Counts getTotals() {
+        return current.get().totals.snapshot();
+    }
+
+    /**
+     * Счетчики по мастерам: id мастера -> счетчики.
+     */
+    public Map<Long, Counts> getByBarber() {
+        return snapshot(current.get().byBarber);
+    }
+
+    /**
+     * Счетчики по услугам: id услуги -> счетчики.
+     */
+    public Map<Long, Counts> getByService() {
+        return snapshot(current.get().byService);
+    }
+
+    private static Map<Long, Counts> snapshot(Map<Long, Counters> counters) {
+        Map<Long, Counts> result = new HashMap<>();
+        counters.forEach((id, value) -> result.put(id, value.snapshot()));
+        return result;
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Значения счетчиков на момент чтения.
+     */
+    public record Counts(long scheduled, long completed, long cancelled, long noShow, long revenueCents) {
+
+        public static final Counts EMPTY = new Counts(0, 0, 0, 0, 0);
+
+        public long total() {
+            return scheduled + completed + cancelled + noShow;
+        }
+
+        public double revenue() {
+            return revenueCents / 100.0;
+        }
+    }
+
+    /**
+     * Полный набор счетчиков. При сверке заменяется новым целиком.
+     */
+    private static final class Aggregate {
+
+        final Counters totals = new Counters();
+        final Map<Long, Counters> byBarber = new ConcurrentHashMap<>();
+        final Map<Long, Counters> byService = new ConcurrentHashMap<>();
+
+        void add(Long barberId, Long serviceId, Appointment.AppointmentStatus status, long count, long revenueCents) {
+            totals.add(status, count, revenueCents);
+            byBarber.computeIfAbsent(barberId, id -> new Counters()).add(status, count, revenueCents);
+            byService.computeIfAbsent(serviceId, id -> new Counters()).add(status, count, revenueCents);
+        }
+    }
+
+    /**
+     * Счетчики одного разреза: по одному LongAdder на статус и выручка в копейках.
+     */
+    private static final class Counters {
+
+        private final LongAdder[] byStatus = new LongAdder[STATUSES.length];
+        private final LongAdder revenueCents = new LongAdder();
+
+        Counters() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+
+        void add(Appointment.AppointmentStatus status, long count, long cents) {
+            byStatus[status.ordinal()].add(count);
+            if (cents != 0) {
+                revenueCents.add(cents);
+            }
+        }
+
+        Counts snapshot() {
+            return new Counts(
+                    byStatus[Appointment.AppointmentStatus.SCHEDULED.ordinal()].sum(),
+                    byStatus[Appointment.AppointmentStatus.COMPLETED.ordinal()].sum(),
+                    byStatus[Appointment.AppointmentStatus.CANCELLED.ordinal()].sum(),
+                    byStatus[Appointment.AppointmentStatus.NO_SHOW.ordinal()].sum(),
+                    revenueCents.sum());
+        }
+    }
+}
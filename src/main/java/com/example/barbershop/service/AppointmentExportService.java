@@ -0,0 +1,179 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.AppointmentFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Выгрузка записей в CSV или NDJSON потоком.
+ * Строки читаются серверным курсором PostgreSQL (fetch size внутри транзакции)
+ * и сразу пишутся в выходной поток по одной, без сущностей и промежуточных списков,
+ * поэтому расход памяти не зависит от размера таблицы.
+ */
+@Service
+@Slf4j
+public class AppointmentExportService {
+
+    private static final String[] COLUMNS = {
+            "id", "appointment_date_time", "appointment_end_time", "status", "created_at",
+            "client_id", "client_email", "client_first_name", "client_last_name",
+            "service_id", "service_name", "price",
+            "barber_id", "barber_email", "barber_first_name", "barber_last_name"
+    };
+
+    private static final String SELECT_SQL = "SELECT a.id, a.appointment_date_time, a.appointment_end_time, " +
+            "a.status, a.created_at, " +
+            "c.id, c.email, c.first_name, c.last_name, " +
+            "s.id, s.name, a.price, " +
+            "b.id, bu.email, bu.first_name, bu.last_name " +
+            "FROM appointments a " +
+            "JOIN users c ON c.id = a.client_id " +
+            "JOIN barber_services bs ON bs.id = a.barber_service_id " +
+            "JOIN services s ON s.id = bs.service_id " +
+            "JOIN barbers b ON b.id = a.barber_id " +
+            "JOIN users bu ON bu.id = b.user_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public AppointmentExportService(DataSource dataSource,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${barbershop.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL использует курсор с fetch size только при выключенном autocommit, то есть в транзакции
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Выгрузить записи в CSV (UTF-8 с BOM, разделитель — запятая).
+     */
+    public void exportCsv(AppointmentFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // BOM — чтобы Excel открывал кириллицу без ручного выбора кодировки
+        writer.write('\uFEFF');
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+
+        long rows = stream(filter, rs -> {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writer.write(csvValue(rs, i));
+            }
+            writer.write('\n');
+        });
+        writer.flush();
+        log.info("Выгрузка записей в CSV: {} строк", rows);
+    }
+
+    /**
+     * Выгрузить записи в NDJSON: один JSON-объект на строку.
+     */
+    public void exportNdjson(AppointmentFilter filter, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long rows = stream(filter, rs -> {
+            generator.writeStartObject();
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                Object value = rs.getObject(i);
+                generator.writeFieldName(COLUMNS[i - 1]);
+                if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeObject(value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+        log.info("Выгрузка записей в NDJSON: {} строк", rows);
+    }
+
+    private long stream(AppointmentFilter filter, RowWriter rowWriter) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL).append("WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            sql.append(" AND a.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getBarberId() != null) {
+            sql.append(" AND a.barber_id = ?");
+            args.add(filter.getBarberId());
+        }
+        if (filter.getClientId() != null) {
+            sql.append(" AND a.client_id = ?");
+            args.add(filter.getClientId());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND a.appointment_date_time >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND a.appointment_date_time < ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        sql.append(" ORDER BY a.appointment_date_time, a.id");
+
+        long[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(sql.toString(), rs -> {
+                        try {
+                            rowWriter.write(rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            // Клиент оборвал соединение — транзакция уже откатилась, курсор закрыт
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    private static String csvValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString() : value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -1,16 +1,36 @@
 package com.example.barbershop.service;
 
+import com.example.barbershop.dto.AppointmentDto;
+import com.example.barbershop.dto.AppointmentFilter;
+import com.example.barbershop.dto.AppointmentPageDto;
 import com.example.barbershop.dto.AppointmentResponseDto;
+import com.example.barbershop.dto.BatchBookingItemDto;
+import com.example.barbershop.dto.BatchBookingResultDto;
 import com.example.barbershop.entity.*;
+import com.example.barbershop.event.AppointmentCancelledEvent;
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
 import com.example.barbershop.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,25 +44,62 @@ public class AppointmentService {
     private final UserRepository userRepository;
     private final ServiceRepository serviceRepository;
     private final BarberRepository barberRepository;
+    private final BarberScheduleIndex scheduleIndex;
+    private final AvailabilityService availabilityService;
+    private final SlotHoldService slotHoldService;
+    private final WorkingScheduleService workingScheduleService;
+    private final BookingLockManager bookingLockManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String SLOT_TAKEN_MESSAGE = "Выбранное время занято. Выберите другое время.";
+    private static final String EXCLUSION_VIOLATION_SQL_STATE = "23P01";
+    static final String OUTSIDE_WORKING_HOURS_MESSAGE = "Мастер не работает в выбранное время.";
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 200;
 
     /**
-     * Создать новую запись на прием.
+     * Создать новую запись на прием. Удержание слота клиентом снимается после коммита.
      */
     @Transactional
     public Appointment createAppointment(User client, Long barberServiceId, LocalDateTime dateTime) {
+        return createAppointment(client, barberServiceId, dateTime, false);
+    }
+
+    /**
+     * Создать новую запись на прием.
+     *
+     * @param keepClientHold true для записи, созданной без участия клиента (лист ожидания):
+     *                       удержание клиентом другого слота сохраняется, а собственное удержание
+     *                       не дает права занять удерживаемое время
+     */
+    @Transactional
+    public Appointment createAppointment(User client, Long barberServiceId, LocalDateTime dateTime,
+                                         boolean keepClientHold) {
         BarberService barberService = barberServiceRepository.findById(barberServiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Услуга мастера не найдена"));
 
-        // Проверяем доступность времени с учетом длительности услуги
+        // Бронирования одного мастера выполняются по очереди до конца транзакции,
+        // иначе два клиента могут одновременно пройти проверку и занять одно время
+        bookingLockManager.lockBarberForTransaction(barberService.getBarber().getId());
+
+        if (!workingScheduleService.isWithinWorkingHours(barberService.getBarber().getId(), dateTime,
+                dateTime.plusMinutes(barberService.getActualDurationMinutes()))) {
+            throw new IllegalArgumentException(OUTSIDE_WORKING_HOURS_MESSAGE);
+        }
+
+        // Проверяем доступность времени с учетом длительности услуги и чужих удержаний
         if (!isTimeSlotAvailable(barberService.getBarber().getId(), dateTime,
-                barberService.getActualDurationMinutes())) {
-            throw new IllegalArgumentException("Выбранное время занято. Выберите другое время.");
+                barberService.getActualDurationMinutes(), keepClientHold ? null : client.getId())) {
+            throw new IllegalArgumentException(SLOT_TAKEN_MESSAGE);
         }
 
         Appointment appointment = new Appointment();
         appointment.setClient(client);
         appointment.setBarberService(barberService);
+        appointment.setBarber(barberService.getBarber());
         appointment.setAppointmentDateTime(dateTime);
+        appointment.setAppointmentEndTime(dateTime.plusMinutes(barberService.getActualDurationMinutes()));
+        appointment.setPrice(barberService.getActualPrice());
         appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
         appointment.setCreatedAt(LocalDateTime.now());
 
@@ -52,60 +109,193 @@ public class AppointmentService {
                 dateTime,
                 barberService.getService().getName());
 
-        return appointmentRepository.save(appointment);
+        Appointment saved;
+        try {
+            // Flush сразу, чтобы ограничение-исключение в базе сработало здесь,
+            // а не при коммите (защищает и от параллельных записей с других экземпляров)
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                log.warn("Пересечение записей отклонено базой: мастер={}, время={}",
+                        barberService.getBarber().getId(), dateTime);
+                throw new IllegalArgumentException(SLOT_TAKEN_MESSAGE);
+            }
+            throw e;
+        }
+        scheduleIndex.add(barberService.getBarber().getId(), saved.getId(),
+                saved.getAppointmentDateTime(), saved.getAppointmentEndTime());
+        if (!keepClientHold) {
+            slotHoldService.releaseClientHoldOnCommit(client.getId());
+        }
+        eventPublisher.publishEvent(AppointmentStatusChangedEvent.created(saved));
+        return saved;
     }
 
     /**
      * Проверить доступность временного слота для мастера с учетом длительности.
-     * Проверяет ВСЕ услуги мастера на пересечение времени.
+     * Проверяет пересечение со ВСЕМИ записями мастера через индекс расписания в памяти
+     * и с удержаниями слотов других клиентов.
      */
-    private boolean isTimeSlotAvailable(Long barberId, LocalDateTime newStartTime, Integer newDurationMinutes) {
+    private boolean isTimeSlotAvailable(Long barberId, LocalDateTime newStartTime, Integer newDurationMinutes,
+                                        Long clientId) {
         LocalDateTime newEndTime = newStartTime.plusMinutes(newDurationMinutes);
 
-        log.info("🔍 Проверка времени: мастер={}, новое время={}-{} ({} мин)",
-                barberId, newStartTime, newEndTime, newDurationMinutes);
-
-        // 1. Найти ВСЕ существующие записи мастера (через все его услуги)
-        List<Appointment> allBarberAppointments = new ArrayList<>();
+        boolean available = availabilityService.isFree(barberId, newStartTime, newEndTime, clientId);
 
-        // Найти все услуги мастера
-        List<BarberService> barberServices = barberServiceRepository.findByBarberId(barberId);
+        log.debug("Проверка времени: мастер={}, время={}-{} ({} мин), свободно={}",
+                barberId, newStartTime, newEndTime, newDurationMinutes, available);
+        return available;
+    }
 
-        // Для каждой услуги мастера найти все записи
-        for (BarberService bs : barberServices) {
-            List<Appointment> appointmentsForService = appointmentRepository.findByBarberServiceId(bs.getId());
-            allBarberAppointments.addAll(appointmentsForService);
+    /**
+     * Пакетное создание записей (корпоративные клиенты, стойка администратора).
+     * Все заявки проверяются по одному снимку расписания затронутых мастеров,
+     * принятые сохраняются JDBC-батчами в одной транзакции.
+     */
+    @Transactional
+    public BatchBookingResultDto createAppointmentsBatch(List<AppointmentDto> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Размер пакета должен быть от 1 до " + MAX_BATCH_SIZE);
         }
 
-        log.info("Найдено {} существующих записей мастера", allBarberAppointments.size());
+        // 1. Загружаем услуги мастеров и клиентов одним запросом на каждую таблицу
+        Map<Long, BarberService> barberServices = barberServiceRepository.findAllById(requests.stream()
+                        .map(AppointmentDto::getBarberServiceId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .toList()).stream()
+                .collect(Collectors.toMap(BarberService::getId, Function.identity()));
+        Map<Long, User> clients = userRepository.findAllById(requests.stream()
+                        .map(AppointmentDto::getClientId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // 2. Блокируем всех затронутых мастеров до конца транзакции
+        Set<Long> barberIds = barberServices.values().stream()
+                .map(bs -> bs.getBarber().getId())
+                .collect(Collectors.toCollection(TreeSet::new));
+        bookingLockManager.lockBarbersForTransaction(barberIds);
+
+        // 3. Снимок расписания: начало -> конец занятых интервалов каждого мастера
+        Map<Long, TreeMap<LocalDateTime, LocalDateTime>> snapshot = new HashMap<>();
+
+        List<BatchBookingItemDto> items = new ArrayList<>(requests.size());
+        List<Appointment> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            AppointmentDto request = requests.get(i);
+            BarberService barberService = barberServices.get(request.getBarberServiceId());
+            User client = clients.get(request.getClientId());
+            if (barberService == null || client == null || request.getAppointmentDateTime() == null) {
+                items.add(new BatchBookingItemDto(i, "ERROR", null,
+                        barberService == null ? "Услуга мастера не найдена"
+                                : client == null ? "Клиент не найден" : "Не указано время записи"));
+                continue;
+            }
+
+            Long barberId = barberService.getBarber().getId();
+            LocalDateTime start = request.getAppointmentDateTime();
+            LocalDateTime end = start.plusMinutes(barberService.getActualDurationMinutes());
 
-        // 2. Проверить каждую существующую запись
-        for (Appointment existing : allBarberAppointments) {
-            // Пропускаем отмененные
-            if (existing.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            TreeMap<LocalDateTime, LocalDateTime> busy = snapshot.computeIfAbsent(barberId,
+                    id -> loadSnapshot(id, requests, barberServices));
+            Map.Entry<LocalDateTime, LocalDateTime> previous = busy.lowerEntry(end);
+            if (previous != null && previous.getValue().isAfter(start)) {
+                items.add(new BatchBookingItemDto(i, "CONFLICT", null, SLOT_TAKEN_MESSAGE));
                 continue;
             }
+            busy.put(start, end);
+
+            Appointment appointment = new Appointment();
+            appointment.setClient(client);
+            appointment.setBarberService(barberService);
+            appointment.setBarber(barberService.getBarber());
+            appointment.setAppointmentDateTime(start);
+            appointment.setAppointmentEndTime(end);
+            appointment.setPrice(barberService.getActualPrice());
+            appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+            appointment.setCreatedAt(now);
+
+            accepted.add(appointment);
+            acceptedIndexes.add(i);
+            items.add(null); // заполним после сохранения, когда станут известны ID
+        }
 
-            LocalDateTime existingStart = existing.getAppointmentDateTime();
-            Integer existingDuration = existing.getBarberService().getActualDurationMinutes();
-            LocalDateTime existingEnd = existingStart.plusMinutes(existingDuration);
+        // 4. Сохраняем принятые записи пакетно
+        List<Appointment> saved;
+        try {
+            saved = appointmentRepository.saveAllAndFlush(accepted);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                // Время заняли параллельно с другого экземпляра приложения — повторите пакет
+                throw new BatchConflictException("Расписание изменилось во время обработки пакета. Повторите попытку.");
+            }
+            throw e;
+        }
+
+        for (int k = 0; k < saved.size(); k++) {
+            Appointment appointment = saved.get(k);
+            scheduleIndex.add(appointment.getBarber().getId(), appointment.getId(),
+                    appointment.getAppointmentDateTime(), appointment.getAppointmentEndTime());
+            eventPublisher.publishEvent(AppointmentStatusChangedEvent.created(appointment));
+            items.set(acceptedIndexes.get(k),
+                    new BatchBookingItemDto(acceptedIndexes.get(k), "CREATED", appointment.getId(), null));
+        }
 
-            log.info("  Существующая: {} - {} ({} мин, статус: {})",
-                    existingStart, existingEnd, existingDuration, existing.getStatus());
+        BatchBookingResultDto result = new BatchBookingResultDto();
+        result.setAccepted(saved.size());
+        result.setRejected(requests.size() - saved.size());
+        result.setItems(items);
 
-            // Проверяем пересечение: новое начало ДО существующего конца
-            // И новое конец ПОСЛЕ существующего начала
-            boolean isOverlapping = newStartTime.isBefore(existingEnd) && newEndTime.isAfter(existingStart);
+        log.info("Пакетное бронирование: {} заявок, создано {}, отклонено {}",
+                requests.size(), result.getAccepted(), result.getRejected());
+        return result;
+    }
 
-            if (isOverlapping) {
-                log.warn("⛔ Время занято! Пересечение с записью ID {}: {} - {}",
-                        existing.getId(), existingStart, existingEnd);
-                return false;
+    /**
+     * Снимок занятости мастера на период, который покрывают заявки пакета к этому мастеру.
+     */
+    private TreeMap<LocalDateTime, LocalDateTime> loadSnapshot(Long barberId, List<AppointmentDto> requests,
+                                                              Map<Long, BarberService> barberServices) {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (AppointmentDto request : requests) {
+            BarberService bs = barberServices.get(request.getBarberServiceId());
+            if (bs == null || request.getAppointmentDateTime() == null || !bs.getBarber().getId().equals(barberId)) {
+                continue;
             }
+            LocalDateTime start = request.getAppointmentDateTime();
+            LocalDateTime end = start.plusMinutes(bs.getActualDurationMinutes());
+            from = from == null || start.isBefore(from) ? start : from;
+            to = to == null || end.isAfter(to) ? end : to;
         }
 
-        log.info("✅ Время свободно");
-        return true;
+        TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+        for (BarberScheduleIndex.Interval interval : availabilityService.getBusyIntervals(barberId, from, to)) {
+            busy.put(interval.start(), interval.end());
+        }
+        return busy;
+    }
+
+    /**
+     * Нарушено ли ограничение appointments_no_overlap. Имя ограничения берется из исключения Hibernate;
+     * для ограничений-исключений (SQLSTATE 23P01) диалект PostgreSQL имя не извлекает, а другого
+     * ограничения-исключения у таблицы нет, поэтому тогда достаточно кода ошибки.
+     */
+    private boolean isOverlapViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraintName = violation.getConstraintName();
+                return constraintName != null
+                        ? constraintName.equalsIgnoreCase(Appointment.NO_OVERLAP_CONSTRAINT)
+                        : EXCLUSION_VIOLATION_SQL_STATE.equals(violation.getSQLState());
+            }
+        }
+        return false;
     }
 
     /**
@@ -211,11 +401,17 @@ public class AppointmentService {
                 Appointment appointment = new Appointment();
                 appointment.setClient(client);
                 appointment.setBarberService(barberService);
+                appointment.setBarber(barber);
                 appointment.setAppointmentDateTime(tomorrow10am);
+                appointment.setAppointmentEndTime(tomorrow10am.plusMinutes(barberService.getActualDurationMinutes()));
+                appointment.setPrice(barberService.getActualPrice());
                 appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
                 appointment.setCreatedAt(LocalDateTime.now());
 
                 appointmentRepository.save(appointment);
+                scheduleIndex.add(barber.getId(), appointment.getId(),
+                        appointment.getAppointmentDateTime(), appointment.getAppointmentEndTime());
+                eventPublisher.publishEvent(AppointmentStatusChangedEvent.created(appointment));
                 log.info("✅ Создана тестовая запись для мастера: {}", barberUser.getEmail());
             }
         }
@@ -224,8 +420,8 @@ public class AppointmentService {
     /**
      * Найти все записи клиента.
      */
-    public List<Appointment> getClientAppointments(Long clientId) {
-        return appointmentRepository.findByClientId(clientId);
+    public List<AppointmentResponseDto> getClientAppointments(Long clientId) {
+        return appointmentRepository.findResponseDtosByClientId(clientId);
     }
 
     /**
@@ -236,8 +432,20 @@ public class AppointmentService {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Запись не найдена"));
 
+        if (appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED) {
+            scheduleIndex.remove(appointment.getBarber().getId(), appointment.getId(),
+                    appointment.getAppointmentDateTime(), appointment.getAppointmentEndTime());
+            // Освободившееся время предлагается листу ожидания после коммита отмены
+            eventPublisher.publishEvent(new AppointmentCancelledEvent(appointment.getId(),
+                    appointment.getBarber().getId(),
+                    appointment.getAppointmentDateTime(), appointment.getAppointmentEndTime()));
+        }
+
+        Appointment.AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
-        return appointmentRepository.save(appointment);
+        Appointment saved = appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(AppointmentStatusChangedEvent.of(saved, previousStatus));
+        return saved;
     }
 
     /**
@@ -251,14 +459,8 @@ public class AppointmentService {
     /**
      * Найти все записи (приемы) конкретного мастера.
      */
-    public List<Appointment> findAppointmentsByBarber(Long barberId) {
-        List<BarberService> barberServices = barberServiceRepository.findByBarberId(barberId);
-
-        List<Long> barberServiceIds = barberServices.stream()
-                .map(BarberService::getId)
-                .collect(Collectors.toList());
-
-        return appointmentRepository.findByBarberServiceIdIn(barberServiceIds);
+    public List<AppointmentResponseDto> findAppointmentsByBarber(Long barberId) {
+        return appointmentRepository.findResponseDtosByBarberId(barberId);
     }
 
     /**
@@ -269,78 +471,62 @@ public class AppointmentService {
     }
 
     public List<AppointmentResponseDto> getAllAppointmentsAsDto() {
-        return appointmentRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return appointmentRepository.findAllResponseDtos();
     }
 
-    public AppointmentResponseDto convertToDto(Appointment appointment) {
-        log.debug("Конвертация записи ID {} в DTO", appointment.getId());
-
-        AppointmentResponseDto dto = new AppointmentResponseDto();
+    /**
+     * Получить запись по ID в виде DTO (одним запросом).
+     */
+    public AppointmentResponseDto getAppointmentDto(Long id) {
+        return appointmentRepository.findResponseDtoById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Запись не найдена"));
+    }
 
-        // Основные поля
-        dto.setId(appointment.getId());
-        dto.setAppointmentDateTime(appointment.getAppointmentDateTime());
-        dto.setStatus(appointment.getStatus() != null ? appointment.getStatus().name() : "UNKNOWN");
-        dto.setCreatedAt(appointment.getCreatedAt());
+    /**
+     * Страница записей по фильтру в порядке времени начала.
+     *
+     * @param cursor значение nextCursor предыдущей страницы (null — первая страница)
+     */
+    public AppointmentPageDto getAppointmentsPage(AppointmentFilter filter, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
 
-        // Информация о клиенте
-        if (appointment.getClient() != null) {
-            User client = appointment.getClient();
-            dto.setClientId(client.getId());
-            dto.setClientEmail(client.getEmail());
+        PagePosition after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
 
-            // Объединяем имя и фамилию
-            String clientFullName = "";
-            if (client.getFirstName() != null) {
-                clientFullName += client.getFirstName();
-            }
-            if (client.getLastName() != null) {
-                if (!clientFullName.isEmpty()) {
-                    clientFullName += " ";
-                }
-                clientFullName += client.getLastName();
-            }
-            dto.setClientName(clientFullName.isEmpty() ? client.getEmail() : clientFullName);
+        // Читаем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<AppointmentResponseDto> items = appointmentRepository.findPage(filter,
+                after != null ? after.dateTime() : null, after != null ? after.id() : null, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            AppointmentResponseDto last = items.get(limit - 1);
+            nextCursor = encodeCursor(last.getAppointmentDateTime(), last.getId());
         }
+        return new AppointmentPageDto(items, nextCursor);
+    }
 
-        // Информация об услуге и мастере
-        if (appointment.getBarberService() != null) {
-            BarberService barberService = appointment.getBarberService();
-
-            // Услуга
-            if (barberService.getService() != null) {
-                ServiceItem service = barberService.getService();
-                dto.setServiceId(service.getId());
-                dto.setServiceName(service.getName());
-                dto.setServicePrice(barberService.getActualPrice());
-                dto.setServiceDurationMinutes(barberService.getActualDurationMinutes()); // Добавляем длительность
-            }
+    /**
+     * Курсор — позиция последней записи страницы (время начала и ID) в base64url.
+     * Клиент передает его обратно как есть, не разбирая.
+     */
+    static String encodeCursor(LocalDateTime dateTime, Long id) {
+        String position = dateTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-            // Мастер
-            if (barberService.getBarber() != null) {
-                Barber barber = barberService.getBarber();
-                dto.setBarberId(barber.getId());
-
-                if (barber.getUser() != null) {
-                    User barberUser = barber.getUser();
-                    String barberFullName = "";
-                    if (barberUser.getFirstName() != null) {
-                        barberFullName += barberUser.getFirstName();
-                    }
-                    if (barberUser.getLastName() != null) {
-                        if (!barberFullName.isEmpty()) {
-                            barberFullName += " ";
-                        }
-                        barberFullName += barberUser.getLastName();
-                    }
-                    dto.setBarberName(barberFullName.isEmpty() ? barberUser.getEmail() : barberFullName);
-                }
+    static PagePosition decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Некорректный курсор");
             }
+            return new PagePosition(LocalDateTime.parse(position[0]), Long.parseLong(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
         }
+    }
 
-        log.debug("DTO создан: {}", dto);
-        return dto;
+    record PagePosition(LocalDateTime dateTime, Long id) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.example.barbershop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Единая точка проверки занятости мастера.
+ * Объединяет рабочее время ({@link WorkingScheduleService}), записи из {@link BarberScheduleIndex},
+ * вхождения повторяющихся серий ({@link RecurringSeriesIndex}) и временные удержания слотов,
+ * чтобы бронирование, карты занятости и поиск слотов видели одно и то же расписание.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+
+    private final WorkingScheduleService workingScheduleService;
+    private final BarberScheduleIndex scheduleIndex;
+    private final RecurringSeriesIndex recurringSeriesIndex;
+    private final SlotHoldService slotHoldService;
+
+    /**
+     * Свободен ли интервал [start, end) у мастера: попадает в рабочее время и ничем не занят.
+     *
+     * @param exceptClientId клиент, чьи удержания не мешают (null — учитывать все удержания)
+     */
+    public boolean isFree(Long barberId, LocalDateTime start, LocalDateTime end, Long exceptClientId) {
+        return workingScheduleService.isWithinWorkingHours(barberId, start, end)
+                && scheduleIndex.isFree(barberId, start, end)
+                && recurringSeriesIndex.isFree(barberId, start, end)
+                && !slotHoldService.isHeld(barberId, start, end, exceptClientId);
+    }
+
+    /**
+     * Занятые интервалы мастера, пересекающие период [from, to), с учетом всех удержаний.
+     */
+    public List<BarberScheduleIndex.Interval> getBusyIntervals(Long barberId, LocalDateTime from, LocalDateTime to) {
+        return getBusyIntervals(barberId, from, to, null);
+    }
+
+    /**
+     * Занятые интервалы мастера, пересекающие период [from, to), включая нерабочее время.
+     * Результат отсортирован по началу, пересекающиеся интервалы склеены.
+     */
+    public List<BarberScheduleIndex.Interval> getBusyIntervals(Long barberId, LocalDateTime from,
+                                                               LocalDateTime to, Long exceptClientId) {
+        List<BarberScheduleIndex.Interval> closed = workingScheduleService.getClosedIntervals(barberId, from, to);
+        List<BarberScheduleIndex.Interval> booked = scheduleIndex.getIntervals(barberId, from, to);
+        List<BarberScheduleIndex.Interval> recurring = recurringSeriesIndex.getIntervals(barberId, from, to);
+        List<BarberScheduleIndex.Interval> held = slotHoldService.getHeldIntervals(barberId, from, to, exceptClientId);
+        if (closed.isEmpty() && recurring.isEmpty() && held.isEmpty()) {
+            return booked;
+        }
+
+        List<BarberScheduleIndex.Interval> all = new ArrayList<>(
+                closed.size() + booked.size() + recurring.size() + held.size());
+        all.addAll(closed);
+        all.addAll(booked);
+        all.addAll(recurring);
+        all.addAll(held);
+        all.sort(Comparator.comparing(BarberScheduleIndex.Interval::start));
+
+        List<BarberScheduleIndex.Interval> merged = new ArrayList<>(all.size());
+        BarberScheduleIndex.Interval current = all.get(0);
+        for (int i = 1; i < all.size(); i++) {
+            BarberScheduleIndex.Interval next = all.get(i);
+            if (next.start().isAfter(current.end())) {
+                merged.add(current);
+                current = next;
+            } else if (next.end().isAfter(current.end())) {
+                current = new BarberScheduleIndex.Interval(null, current.start(), next.end());
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+}
@@ -25,6 +25,7 @@ public class BarberManagementService {
     private final ServiceRepository serviceRepository;
     private final BarberServiceRepository barberServiceRepository;
     private final UserRepository userRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     /**
      * Получить всех парикмахеров.
@@ -63,7 +64,9 @@ public class BarberManagementService {
         barber.setUser(user);
         barber.setSpecialization(specialization);
 
-        return barberRepository.save(barber);
+        Barber saved = barberRepository.save(barber);
+        catalogSnapshotService.refreshOnCommit();
+        return saved;
     }
 
     /**
@@ -88,7 +91,9 @@ public class BarberManagementService {
         barberService.setActualDurationMinutes(actualDurationMinutes != null ?
                 actualDurationMinutes : service.getBaseDurationMinutes());
 
-        return barberServiceRepository.save(barberService);
+        BarberService saved = barberServiceRepository.save(barberService);
+        catalogSnapshotService.refreshOnCommit();
+        return saved;
     }
 
     /**
@@ -114,5 +119,6 @@ public class BarberManagementService {
             throw new IllegalArgumentException("Связь парикмахер-услуга не найдена");
         }
         barberServiceRepository.deleteById(barberServiceId);
+        catalogSnapshotService.refreshOnCommit();
     }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.event.BarberScheduleChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс занятости мастеров в памяти.
+ * Для каждого мастера хранит отсортированные по началу интервалы активных (не отмененных) записей.
+ * Интервалы загружаются лениво одним запросом при первом обращении к мастеру,
+ * начиная со вчерашнего дня, и дальше поддерживаются при создании и отмене записей.
+ * Интервалы одного мастера не пересекаются (это гарантирует проверка при создании),
+ * поэтому проверка пересечения сводится к поиску ближайшего интервала слева — O(log n).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BarberScheduleIndex {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, BarberTimeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Проверить, свободен ли у мастера интервал [start, end).
+     */
+    public boolean isFree(Long barberId, LocalDateTime start, LocalDateTime end) {
+        BarberTimeline timeline = loadedTimeline(barberId);
+        if (start.isBefore(timeline.horizon)) {
+            // Запись в прошлое — редкий случай, проверяем напрямую по базе
+            return !appointmentRepository.existsOverlapping(barberId, start, end);
+        }
+        return timeline.isFree(start, end);
+    }
+
+    /**
+     * Получить интервалы записей мастера, пересекающиеся с [from, to), в порядке начала.
+     */
+    public List<Interval> getIntervals(Long barberId, LocalDateTime from, LocalDateTime to) {
+        BarberTimeline timeline = loadedTimeline(barberId);
+        if (from.isBefore(timeline.horizon)) {
+            return toIntervals(appointmentRepository.findActiveIntervalsByBarberBetween(barberId, from, to));
+        }
+        return timeline.between(from, to);
+    }
+
+    /**
+     * Добавить интервал новой записи.
+     * Применяется сразу, чтобы параллельные проверки видели слот занятым еще до коммита.
+     * При откате транзакции убирается только этот интервал: незакоммиченные интервалы
+     * других транзакций того же мастера остаются в индексе.
+     */
+    public void add(Long barberId, Long appointmentId, LocalDateTime start, LocalDateTime end) {
+        timelines.computeIfAbsent(barberId, id -> new BarberTimeline())
+                .add(new Interval(appointmentId, start, end));
+        eventPublisher.publishEvent(new BarberScheduleChangedEvent(barberId, start, end));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        discard(barberId, appointmentId, start, end);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Удалить интервал отмененной записи.
+     * Применяется только после коммита, чтобы до этого момента слот оставался занятым.
+     */
+    public void remove(Long barberId, Long appointmentId, LocalDateTime start, LocalDateTime end) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeNow(barberId, appointmentId, start, end);
+                }
+            });
+        } else {
+            removeNow(barberId, appointmentId, start, end);
+        }
+    }
+
+    /**
+     * Сбросить индекс мастера. Следующее обращение перечитает его из базы.
+     */
+    public void invalidate(Long barberId) {
+        timelines.remove(barberId);
+        eventPublisher.publishEvent(BarberScheduleChangedEvent.wholeSchedule(barberId));
+        log.debug("Индекс расписания мастера {} сброшен", barberId);
+    }
+
+    /**
+     * Сбросить индекс всех мастеров.
+     */
+    public void invalidateAll() {
+        timelines.clear();
+        eventPublisher.publishEvent(BarberScheduleChangedEvent.allBarbers());
+    }
+
+    private void removeNow(Long barberId, Long appointmentId, LocalDateTime start, LocalDateTime end) {
+        BarberTimeline timeline = timelines.get(barberId);
+        if (timeline != null && !timeline.remove(appointmentId, start)) {
+            invalidate(barberId);
+            return;
+        }
+        eventPublisher.publishEvent(new BarberScheduleChangedEvent(barberId, start, end));
+    }
+
+    /**
+     * Убрать интервал откаченной записи. Если под тем же началом лежит другая запись,
+     * значит, интервал откаченной записи в индекс не попал и убирать нечего.
+     */
+    private void discard(Long barberId, Long appointmentId, LocalDateTime start, LocalDateTime end) {
+        BarberTimeline timeline = timelines.get(barberId);
+        if (timeline != null) {
+            timeline.remove(appointmentId, start);
+        }
+        eventPublisher.publishEvent(new BarberScheduleChangedEvent(barberId, start, end));
+        log.debug("Интервал откаченной записи {} мастера {} убран из индекса", appointmentId, barberId);
+    }
+
+    private BarberTimeline loadedTimeline(Long barberId) {
+        BarberTimeline timeline = timelines.computeIfAbsent(barberId, id -> new BarberTimeline());
+        timeline.ensureLoaded(barberId);
+        return timeline;
+    }
+
+    private static List<Interval> toIntervals(List<Object[]> rows) {
+        List<Interval> intervals = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            intervals.add(new Interval((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]));
+        }
+        return intervals;
+    }
+
+    /**
+     * Интервал занятости мастера [start, end).
+     */
+    public record Interval(Long appointmentId, LocalDateTime start, LocalDateTime end) {
+
+        public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return otherStart.isBefore(end) && otherEnd.isAfter(start);
+        }
+    }
+
+    /**
+     * Расписание одного мастера: интервалы, отсортированные по началу.
+     * Старые данные могут содержать пересекающиеся интервалы, поэтому конфликт ищется не только
+     * у ближайшего предыдущего интервала, а у всех, начавшихся не раньше чем за самую длинную
+     * продолжительность до проверяемого времени.
+     */
+    private final class BarberTimeline {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<LocalDateTime, Interval> intervals = new TreeMap<>();
+        private volatile boolean loaded;
+        private LocalDateTime horizon = LocalDateTime.MIN;
+        // Самый длинный интервал за время жизни расписания; при удалении не уменьшается
+        private Duration maxLength = Duration.ZERO;
+
+        void ensureLoaded(Long barberId) {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    return;
+                }
+                LocalDateTime newHorizon = LocalDate.now().minusDays(1).atStartOfDay();
+                List<Interval> rows = toIntervals(appointmentRepository.findActiveIntervalsByBarber(
+                        barberId, newHorizon));
+                // Интервалы, добавленные до загрузки (еще не закоммиченные записи), остаются в карте
+                for (Interval interval : rows) {
+                    put(interval);
+                }
+                horizon = newHorizon;
+                loaded = true;
+                log.debug("Загружен индекс расписания мастера {}: {} интервалов", barberId, rows.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean isFree(LocalDateTime start, LocalDateTime end) {
+            lock.readLock().lock();
+            try {
+                for (Interval interval : intervals.subMap(start.minus(maxLength), true, end, false).values()) {
+                    if (interval.end().isAfter(start)) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<Interval> between(LocalDateTime from, LocalDateTime to) {
+            lock.readLock().lock();
+            try {
+                return intervals.subMap(from.minus(maxLength), true, to, false).values().stream()
+                        .filter(interval -> interval.overlaps(from, to))
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(Interval interval) {
+            lock.writeLock().lock();
+            try {
+                put(interval);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean remove(Long appointmentId, LocalDateTime start) {
+            lock.writeLock().lock();
+            try {
+                Interval existing = intervals.get(start);
+                if (existing == null) {
+                    return true;
+                }
+                if (!Objects.equals(existing.appointmentId(), appointmentId)) {
+                    return false;
+                }
+                intervals.remove(start);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void put(Interval interval) {
+            Duration length = Duration.between(interval.start(), interval.end());
+            if (length.compareTo(maxLength) > 0) {
+                maxLength = length;
+            }
+            // Старые данные могут содержать записи с одинаковым началом — оставляем самую длинную
+            intervals.merge(interval.start(), interval,
+                    (current, candidate) -> candidate.end().isAfter(current.end()) ? candidate : current);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.barbershop.service;
+
+/**
+ * Пакет записей не сохранен: время заняли параллельно (сработало ограничение appointments_no_overlap).
+ * Транзакция пакета откатывается целиком, поэтому конфликтующие заявки определить нельзя —
+ * пакет нужно отправить повторно, и при повторной проверке занятые заявки получат статус CONFLICT.
+ */
+public class BatchConflictException extends IllegalStateException {
+
+    public BatchConflictException(String message) {
+        super(message);
+    }
+}
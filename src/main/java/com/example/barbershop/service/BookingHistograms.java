@@ -0,0 +1,139 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Распределения записей в минутах: за сколько до приема записываются клиенты
+ * (начало записи минус дата создания) и длительность приема — всего, по мастерам и по услугам.
+ * Заполняются из базы один раз при старте, дальше обновляются при создании записей;
+ * чтение перцентилей не обращается к базе. Отмена записи распределения не меняет.
+ */
+@Component
+@Slf4j
+public class BookingHistograms {
+
+    /**
+     * Измеряемая величина.
+     */
+    public enum Metric {
+        LEAD_TIME, DURATION
+    }
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<Aggregate> current = new AtomicReference<>(new Aggregate());
+
+    public BookingHistograms(AppointmentRepository appointmentRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        Aggregate loaded = new Aggregate();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = appointmentRepository.streamBookingTimes()) {
+                rows.forEach(row -> loaded.record((Long) row[0], (Long) row[1],
+                        (LocalDateTime) row[2], (LocalDateTime) row[3], (LocalDateTime) row[4]));
+            }
+        });
+        current.set(loaded);
+        log.info("Гистограммы записей заполнены: {} записей", loaded.get(Metric.LEAD_TIME).total.percentiles().count());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        if (event.previousStatus() != null) {
+            return;
+        }
+        current.get().record(event.barberId(), event.serviceId(),
+                event.appointmentDateTime(), event.appointmentEndTime(), event.createdAt());
+    }
+
+    /**
+     * Перцентили по всем записям.
+     */
+    public LogHistogram.Percentiles getTotal(Metric metric) {
+        return current.get().get(metric).total.percentiles();
+    }
+
+    /**
+     * Перцентили по мастерам: id мастера -> перцентили.
+     */
+    public Map<Long, LogHistogram.Percentiles> getByBarber(Metric metric) {
+        return percentiles(current.get().get(metric).byBarber);
+    }
+
+    /**
+     * Перцентили по услугам: id услуги -> перцентили.
+     */
+    public Map<Long, LogHistogram.Percentiles> getByService(Metric metric) {
+        return percentiles(current.get().get(metric).byService);
+    }
+
+    private static Map<Long, LogHistogram.Percentiles> percentiles(Map<Long, LogHistogram> histograms) {
+        Map<Long, LogHistogram.Percentiles> result = new HashMap<>();
+        histograms.forEach((id, histogram) -> result.put(id, histogram.percentiles()));
+        return result;
+    }
+
+    /**
+     * Гистограммы обеих величин. При заполнении из базы заменяется целиком.
+     */
+    private static final class Aggregate {
+
+        final Slices leadTime = new Slices();
+        final Slices duration = new Slices();
+
+        Slices get(Metric metric) {
+            return metric == Metric.LEAD_TIME ? leadTime : duration;
+        }
+
+        void record(Long barberId, Long serviceId, LocalDateTime start, LocalDateTime end, LocalDateTime createdAt) {
+            if (start == null) {
+                return;
+            }
+            if (createdAt != null) {
+                leadTime.record(barberId, serviceId, Duration.between(createdAt, start).toMinutes());
+            }
+            if (end != null) {
+                duration.record(barberId, serviceId, Duration.between(start, end).toMinutes());
+            }
+        }
+    }
+
+    /**
+     * Гистограммы одной величины: всего, по мастерам и по услугам.
+     */
+    private static final class Slices {
+
+        final LogHistogram total = new LogHistogram();
+        final Map<Long, LogHistogram> byBarber = new ConcurrentHashMap<>();
+        final Map<Long, LogHistogram> byService = new ConcurrentHashMap<>();
+
+        void record(Long barberId, Long serviceId, long minutes) {
+            total.record(minutes);
+            byBarber.computeIfAbsent(barberId, id -> new LogHistogram()).record(minutes);
+            byService.computeIfAbsent(serviceId, id -> new LogHistogram()).record(minutes);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.barbershop.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировки бронирования по мастерам (lock striping).
+ * Бронирования одного мастера выполняются строго по очереди: блокировка берется внутри транзакции
+ * и отпускается только после ее коммита или отката, поэтому следующая проверка доступности
+ * уже видит предыдущую запись. Бронирования разных мастеров идут параллельно,
+ * пока мастера не попадают в одну полосу (stripe).
+ */
+@Component
+@Slf4j
+public class BookingLockManager {
+
+    @Value("${barbershop.booking.lock-mode:striped}")
+    private String lockMode;
+
+    @Value("${barbershop.booking.lock-stripes:64}")
+    private int stripeCount;
+
+    @Value("${barbershop.booking.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    private ReentrantLock[] stripes;
+
+    @PostConstruct
+    void init() {
+        if (!"striped".equalsIgnoreCase(lockMode) && !"none".equalsIgnoreCase(lockMode)) {
+            throw new IllegalStateException("Неизвестный barbershop.booking.lock-mode: " + lockMode);
+        }
+        if (stripeCount <= 0) {
+            throw new IllegalStateException("barbershop.booking.lock-stripes должен быть положительным");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Заблокировать бронирования мастера до завершения текущей транзакции.
+     */
+    public void lockBarberForTransaction(Long barberId) {
+        if (!isEnabled()) {
+            return;
+        }
+        acquire(stripes[stripeIndex(barberId)], barberId);
+    }
+
+    /**
+     * Заблокировать бронирования нескольких мастеров до завершения текущей транзакции.
+     * Полосы берутся в порядке возрастания номера, чтобы исключить взаимоблокировки.
+     */
+    public void lockBarbersForTransaction(Collection<Long> barberIds) {
+        if (!isEnabled()) {
+            return;
+        }
+        barberIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .forEach(index -> acquire(stripes[index], null));
+    }
+
+    private boolean isEnabled() {
+        return "striped".equalsIgnoreCase(lockMode);
+    }
+
+    private void acquire(ReentrantLock lock, Long barberId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка бронирования требует активной транзакции");
+        }
+
+        try {
+            if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Не удалось дождаться блокировки бронирования (мастер {})", barberId);
+                throw new IllegalStateException("Мастер сейчас обрабатывает другую запись. Повторите попытку.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Бронирование прервано", e);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private int stripeIndex(Long barberId) {
+        int hash = Long.hashCode(barberId) * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), stripeCount);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.barbershop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Готовые ответы каталога: JSON, уже сжатый gzip, и строгий ETag.
+ * Ответ сериализуется один раз на версию снимка каталога; пока версия не изменилась,
+ * запросы получают те же байты без работы Jackson.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogResponseCache {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, CatalogResponse> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Получить готовый ответ для текущей версии каталога.
+     *
+     * @param name        имя ответа (ключ кэша)
+     * @param bodyBuilder построение тела ответа из снимка; вызывается только при смене версии
+     */
+    public CatalogResponse get(String name, Function<CatalogSnapshot, ?> bodyBuilder) {
+        CatalogSnapshot snapshot = catalogSnapshotService.get();
+        CatalogResponse cached = responses.get(name);
+        if (cached != null && cached.version() == snapshot.getVersion()) {
+            return cached;
+        }
+        return responses.compute(name, (key, previous) ->
+                previous != null && previous.version() == snapshot.getVersion()
+                        ? previous
+                        : serialize(name, snapshot, bodyBuilder));
+    }
+
+    private CatalogResponse serialize(String name, CatalogSnapshot snapshot, Function<CatalogSnapshot, ?> bodyBuilder) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(bodyBuilder.apply(snapshot));
+            CatalogResponse response = new CatalogResponse(snapshot.getVersion(), etag(json), json, gzip(json));
+            log.debug("Ответ каталога '{}' v{}: {} байт, gzip {} байт", name, snapshot.getVersion(),
+                    json.length, response.gzippedJson().length);
+            return response;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ каталога " + name, e);
+        }
+    }
+
+    /**
+     * ETag по содержимому: одинаковые данные дают тот же тег и после перезапуска,
+     * когда нумерация версий снимка начинается заново.
+     */
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Сериализованный ответ для одной версии каталога. Массивы не изменяются после построения.
+     */
+    public record CatalogResponse(long version, String etag, byte[] json, byte[] gzippedJson) {
+
+        /**
+         * ETag сжатого представления. Сильный ETag обязан различаться у разных байтов ответа,
+         * поэтому к тегу несжатого JSON добавляется суффикс "-gz".
+         */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+
+        /**
+         * Совпадает ли одно из значений заголовка If-None-Match с ETag любого из представлений:
+         * данные у них одни и те же, поэтому клиенту с любым из тегов подходит 304.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
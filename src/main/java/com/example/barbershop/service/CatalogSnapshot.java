@@ -0,0 +1,130 @@
+package com.example.barbershop.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый снимок каталога: услуги, мастера и услуги мастеров.
+ * Снимок не меняется после построения — при изменении каталога строится новый
+ * и целиком подменяет старый, поэтому читатели работают без блокировок.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final List<ServiceEntry> services;
+    private final List<BarberEntry> barbers;
+    private final List<BarberServiceEntry> barberServices;
+
+    private final Map<Long, ServiceEntry> servicesById;
+    private final Map<Long, BarberEntry> barbersById;
+    private final Map<Long, BarberServiceEntry> barberServicesById;
+    private final Map<Long, List<BarberServiceEntry>> barberServicesByService;
+
+    CatalogSnapshot(long version, List<ServiceEntry> services, List<BarberEntry> barbers,
+                    List<BarberServiceEntry> barberServices) {
+        this.version = version;
+        this.services = List.copyOf(services);
+        this.barberServices = List.copyOf(barberServices);
+
+        Map<Long, List<BarberServiceEntry>> byBarber = new HashMap<>();
+        Map<Long, List<BarberServiceEntry>> byService = new HashMap<>();
+        for (BarberServiceEntry entry : this.barberServices) {
+            byBarber.computeIfAbsent(entry.barberId(), id -> new ArrayList<>()).add(entry);
+            byService.computeIfAbsent(entry.serviceId(), id -> new ArrayList<>()).add(entry);
+        }
+        // Услуги мастера вкладываются в запись мастера — форме записи больше ничего не нужно
+        this.barbers = barbers.stream()
+                .map(barber -> barber.withServices(byBarber.getOrDefault(barber.id(), List.of())))
+                .toList();
+
+        this.servicesById = index(this.services, ServiceEntry::id);
+        this.barbersById = index(this.barbers, BarberEntry::id);
+        this.barberServicesById = index(this.barberServices, BarberServiceEntry::id);
+        this.barberServicesByService = byService.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+    }
+
+    /**
+     * Версия снимка: растет при каждой пересборке.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public List<ServiceEntry> getServices() {
+        return services;
+    }
+
+    public List<BarberEntry> getBarbers() {
+        return barbers;
+    }
+
+    public List<BarberServiceEntry> getBarberServices() {
+        return barberServices;
+    }
+
+    public ServiceEntry findService(Long serviceId) {
+        return servicesById.get(serviceId);
+    }
+
+    public BarberEntry findBarber(Long barberId) {
+        return barbersById.get(barberId);
+    }
+
+    public BarberServiceEntry findBarberService(Long barberServiceId) {
+        return barberServicesById.get(barberServiceId);
+    }
+
+    /**
+     * Услуги мастеров, оказывающих данную услугу.
+     */
+    public List<BarberServiceEntry> getBarberServicesByService(Long serviceId) {
+        return barberServicesByService.getOrDefault(serviceId, List.of());
+    }
+
+    private static <T> Map<Long, T> index(List<T> items, Function<T, Long> id) {
+        Map<Long, T> result = new LinkedHashMap<>();
+        for (T item : items) {
+            result.put(id.apply(item), item);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Услуга из справочника. Поля совпадают с JSON сущности услуги.
+     */
+    public record ServiceEntry(Long id, String name, String description,
+                               Integer baseDurationMinutes, Double basePrice) {
+    }
+
+    /**
+     * Мастер с именем пользователя и списком своих услуг.
+     */
+    public record BarberEntry(Long id, Long userId, String firstName, String lastName,
+                              String specialization, List<BarberServiceEntry> services) {
+
+        public String fullName() {
+            return firstName + " " + lastName;
+        }
+
+        BarberEntry withServices(List<BarberServiceEntry> barberServices) {
+            List<BarberServiceEntry> sorted = new ArrayList<>(barberServices);
+            sorted.sort(Comparator.comparing(BarberServiceEntry::id));
+            return new BarberEntry(id, userId, firstName, lastName, specialization, List.copyOf(sorted));
+        }
+    }
+
+    /**
+     * Услуга мастера: фактические цена и длительность.
+     */
+    public record BarberServiceEntry(Long id, Long barberId, Long serviceId, String serviceName,
+                                     Double actualPrice, Integer actualDurationMinutes) {
+    }
+}
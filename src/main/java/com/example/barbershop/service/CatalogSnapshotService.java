@@ -0,0 +1,159 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.Barber;
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.entity.ServiceItem;
+import com.example.barbershop.repository.BarberRepository;
+import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.repository.ServiceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Владелец текущего снимка каталога ({@link CatalogSnapshot}).
+ * Чтение — одно volatile-чтение ссылки без обращения к базе. Изменения каталога
+ * сообщают о себе через {@link #refreshOnCommit()}: после коммита снимок строится заново
+ * тремя запросами и атомарно подменяет предыдущий (copy-on-write).
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    private final ServiceRepository serviceRepository;
+    private final BarberRepository barberRepository;
+    private final BarberServiceRepository barberServiceRepository;
+    private final TransactionTemplate rebuildTransaction;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    /**
+     * Счетчик закоммиченных изменений каталога. Снимок, построенный раньше последнего изменения,
+     * считается устаревшим и пересобирается при следующем чтении, если пересборка после коммита не удалась.
+     */
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long snapshotChanges = -1;
+
+    public CatalogSnapshotService(ServiceRepository serviceRepository,
+                                  BarberRepository barberRepository,
+                                  BarberServiceRepository barberServiceRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.serviceRepository = serviceRepository;
+        this.barberRepository = barberRepository;
+        this.barberServiceRepository = barberServiceRepository;
+        // Пересборка идет после коммита, когда исходная транзакция уже завершена, — нужна своя
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Текущий снимок каталога.
+     */
+    public CatalogSnapshot get() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null && snapshotChanges == changes.get()) {
+            return snapshot;
+        }
+        return rebuild();
+    }
+
+    /**
+     * Определить мастера по услуге мастера.
+     *
+     * @throws IllegalArgumentException если услуга мастера не найдена
+     */
+    public Long resolveBarberId(Long barberServiceId) {
+        CatalogSnapshot.BarberServiceEntry entry = get().findBarberService(barberServiceId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Услуга мастера не найдена");
+        }
+        return entry.barberId();
+    }
+
+    /**
+     * Пересобрать снимок после коммита текущей транзакции (каталог изменен).
+     */
+    public void refreshOnCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        changes.incrementAndGet();
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Снимок остается помеченным как устаревший и будет пересобран при следующем чтении
+            log.warn("Не удалось пересобрать снимок каталога: {}", e.getMessage());
+        }
+    }
+
+    private synchronized CatalogSnapshot rebuild() {
+        long observedChanges = changes.get();
+        CatalogSnapshot previous = current.get();
+        if (previous != null && snapshotChanges == observedChanges) {
+            return previous;
+        }
+
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        CatalogSnapshot built = rebuildTransaction.execute(status -> build(version));
+        current.set(built);
+        snapshotChanges = observedChanges;
+
+        log.info("Снимок каталога v{}: {} услуг, {} мастеров, {} услуг мастеров", version,
+                built.getServices().size(), built.getBarbers().size(), built.getBarberServices().size());
+        return built;
+    }
+
+    private CatalogSnapshot build(long version) {
+        List<CatalogSnapshot.ServiceEntry> services = serviceRepository.findAll().stream()
+                .sorted(Comparator.comparing(ServiceItem::getId))
+                .map(service -> new CatalogSnapshot.ServiceEntry(service.getId(), service.getName(),
+                        service.getDescription(), service.getBaseDurationMinutes(), service.getBasePrice()))
+                .toList();
+        Map<Long, CatalogSnapshot.ServiceEntry> servicesById = services.stream()
+                .collect(Collectors.toMap(CatalogSnapshot.ServiceEntry::id, Function.identity()));
+
+        List<CatalogSnapshot.BarberEntry> barbers = barberRepository.findAllWithUser().stream()
+                .sorted(Comparator.comparing(Barber::getId))
+                .map(barber -> new CatalogSnapshot.BarberEntry(barber.getId(), barber.getUser().getId(),
+                        barber.getUser().getFirstName(), barber.getUser().getLastName(),
+                        barber.getSpecialization(), List.of()))
+                .toList();
+
+        // Связи на мастера и услугу — прокси: их id известен без дополнительных запросов
+        List<CatalogSnapshot.BarberServiceEntry> barberServices = barberServiceRepository.findAll().stream()
+                .sorted(Comparator.comparing(BarberService::getId))
+                .map(bs -> {
+                    Long serviceId = bs.getService().getId();
+                    CatalogSnapshot.ServiceEntry service = servicesById.get(serviceId);
+                    return new CatalogSnapshot.BarberServiceEntry(bs.getId(), bs.getBarber().getId(), serviceId,
+                            service != null ? service.name() : null,
+                            bs.getActualPrice(), bs.getActualDurationMinutes());
+                })
+                .toList();
+
+        return new CatalogSnapshot(version, services, barbers, barberServices);
+    }
+}
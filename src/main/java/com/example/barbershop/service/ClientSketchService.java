@@ -0,0 +1,214 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.ClientSketch;
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import com.example.barbershop.repository.ClientSketchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Количество различных клиентов по мастерам за любой период.
+ * На каждого мастера и день приема хранится скетч HyperLogLog; ответ на запрос — слияние скетчей
+ * за период, память не зависит ни от длины периода, ни от числа клиентов.
+ * Новые записи сначала попадают в скетчи в памяти и периодически сливаются в базу.
+ * Отмена записи клиента не убирает: считаются клиенты, которые записывались.
+ * <p>
+ * При штатной остановке накопленное записывается в базу. При аварийном завершении процесса
+ * теряются добавления за последний интервал записи: первичное построение выполняется только
+ * на пустой таблице и их не восстановит. Оценки за эти дни будут занижены до повторного
+ * построения (очистить таблицу barber_client_sketches и перезапустить приложение).
+ */
+@Service
+@Slf4j
+public class ClientSketchService {
+
+    private final ClientSketchRepository sketchRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Еще не записанные в базу скетчи. Изменяются только внутри compute по ключу.
+     */
+    private final Map<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    public ClientSketchService(ClientSketchRepository sketchRepository,
+                               AppointmentRepository appointmentRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Первичное построение скетчей по существующим записям, если таблица пуста.
+     * Выполняется под тем же монитором, что и flush(), и сливается с уже записанными строками:
+     * запись, созданная в момент построения, может попасть в базу раньше через flush().
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void seed() {
+        if (sketchRepository.count() > 0) {
+            return;
+        }
+        Map<SketchKey, HyperLogLog> sketches = new HashMap<>();
+        for (Object[] row : appointmentRepository.findDistinctBarberDayClients()) {
+            sketches.computeIfAbsent(new SketchKey((Long) row[0], (LocalDate) row[1]), key -> new HyperLogLog())
+                    .add((Long) row[2]);
+        }
+        if (sketches.isEmpty()) {
+            return;
+        }
+        write(sketches);
+        log.info("Построены скетчи клиентов: {} (мастер, день)", sketches.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        // Клиент учитывается при создании записи; смена статуса множество клиентов не меняет
+        if (event.previousStatus() != null || event.clientId() == null) {
+            return;
+        }
+        SketchKey key = new SketchKey(event.barberId(), event.appointmentDateTime().toLocalDate());
+        pending.compute(key, (k, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.add(event.clientId());
+            return target;
+        });
+    }
+
+    /**
+     * Слить накопленные в памяти скетчи в базу.
+     */
+    @Scheduled(initialDelayString = "${barbershop.sketch.flush-interval-ms:10000}",
+            fixedDelayString = "${barbershop.sketch.flush-interval-ms:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Забираем скетчи из памяти до записи: новые добавления пойдут в свежие скетчи
+        Map<SketchKey, HyperLogLog> batch = new HashMap<>();
+        for (SketchKey key : new ArrayList<>(pending.keySet())) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                batch.put(key, sketch);
+            }
+        }
+        try {
+            write(batch);
+            log.debug("Скетчи клиентов записаны: {}", batch.size());
+        } catch (RuntimeException e) {
+            // Слияние идемпотентно: возвращаем скетчи в память, запишем при следующем прогоне
+            batch.forEach(this::mergePending);
+            log.warn("Не удалось записать скетчи клиентов, повтор при следующем прогоне", e);
+        }
+    }
+
+    /**
+     * Оценка числа различных клиентов за дни приема [from, to] включительно.
+     *
+     * @param barberIds мастера; null или пусто — все мастера
+     */
+    @Transactional(readOnly = true)
+    public UniqueClients countUniqueClients(LocalDate from, LocalDate to, Collection<Long> barberIds) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Нужно указать начало и конец периода");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания периода раньше даты начала");
+        }
+        boolean allBarbers = barberIds == null || barberIds.isEmpty();
+        LocalDate toExclusive = to.plusDays(1);
+
+        HyperLogLog total = new HyperLogLog();
+        Map<Long, HyperLogLog> byBarber = new TreeMap<>();
+        try (Stream<Object[]> rows = allBarbers
+                ? sketchRepository.streamByDays(from, toExclusive)
+                : sketchRepository.streamByDaysAndBarbers(from, toExclusive, barberIds)) {
+            rows.forEach(row -> {
+                HyperLogLog sketch = HyperLogLog.fromBytes((byte[]) row[1]);
+                total.merge(sketch);
+                byBarber.computeIfAbsent((Long) row[0], id -> new HyperLogLog()).merge(sketch);
+            });
+        }
+
+        // Еще не записанные в базу добавления
+        pending.forEach((key, sketch) -> {
+            if (key.day().isBefore(from) || key.day().isAfter(to)
+                    || (!allBarbers && !barberIds.contains(key.barberId()))) {
+                return;
+            }
+            pending.computeIfPresent(key, (k, current) -> {
+                total.merge(current);
+                byBarber.computeIfAbsent(k.barberId(), id -> new HyperLogLog()).merge(current);
+                return current;
+            });
+        });
+
+        Map<Long, Long> estimates = new LinkedHashMap<>();
+        byBarber.forEach((barberId, sketch) -> estimates.put(barberId, sketch.estimate()));
+        return new UniqueClients(from, to, total.estimate(), estimates);
+    }
+
+    /**
+     * Слить скетчи с записанными в базу (или создать строки) в одной транзакции.
+     */
+    private void write(Map<SketchKey, HyperLogLog> sketches) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> sketches.forEach((key, sketch) -> {
+            ClientSketch entity = sketchRepository.findByBarberIdAndDay(key.barberId(), key.day())
+                    .map(existing -> {
+                        HyperLogLog merged = HyperLogLog.fromBytes(existing.getRegisters());
+                        merged.merge(sketch);
+                        existing.setRegisters(merged.toBytes());
+                        existing.setUpdatedAt(now);
+                        return existing;
+                    })
+                    .orElseGet(() -> toEntity(key, sketch, now));
+            sketchRepository.save(entity);
+        }));
+    }
+
+    private void mergePending(SketchKey key, HyperLogLog sketch) {
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                return sketch;
+            }
+            current.merge(sketch);
+            return current;
+        });
+    }
+
+    private static ClientSketch toEntity(SketchKey key, HyperLogLog sketch, LocalDateTime now) {
+        ClientSketch entity = new ClientSketch();
+        entity.setBarberId(key.barberId());
+        entity.setDay(key.day());
+        entity.setRegisters(sketch.toBytes());
+        entity.setUpdatedAt(now);
+        return entity;
+    }
+
+    private record SketchKey(Long barberId, LocalDate day) {
+    }
+
+    /**
+     * Оценка числа различных клиентов за период: всего и по мастерам (id мастера -> оценка).
+     * Сумма по мастерам может превышать общее число: клиент, ходивший к двум мастерам, учитывается у обоих.
+     */
+    public record UniqueClients(LocalDate from, LocalDate to, long total, Map<Long, Long> byBarber) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.repository.AppointmentRepository;
+import com.example.barbershop.repository.DailyAppointmentStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Поддержка дневной сводки записей (daily_appointment_stats).
+ * При первом запуске сводка строится целиком, дальше задача по расписанию пересчитывает
+ * только дни, в которых записи создавались или меняли статус с прошлого прогона.
+ * День пересчитывается целиком (удалить + INSERT ... SELECT), поэтому повторный пересчет безопасен.
+ * Сумма цен берется из цены, сохраненной в записи при бронировании: пересчет дня после
+ * изменения цены услуги у мастера не меняет выручку прошлых записей.
+ * Пересчет нескольких экземпляров приложения не пересекается: транзакция пересчета берет
+ * advisory-блокировку базы, и экземпляр, который ее не получил, пропускает прогон.
+ */
+@Service
+@Slf4j
+public class DailyStatsRollupService {
+
+    /**
+     * Ключ advisory-блокировки пересчета сводки, общий для всех экземпляров приложения.
+     */
+    private static final long REFRESH_LOCK_KEY = 0x6461696C79L; // "daily"
+
+    private final AppointmentRepository appointmentRepository;
+    private final DailyAppointmentStatsRepository dailyStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Запас по времени при поиске измененных записей: покрывает транзакции,
+     * которые начались до прогона, а закоммитились после него.
+     */
+    private final long lagSeconds;
+
+    /**
+     * Записи, измененные начиная с этого момента, еще не учтены в сводке. null — сводка не построена.
+     */
+    private LocalDateTime watermark;
+
+    public DailyStatsRollupService(AppointmentRepository appointmentRepository,
+                                   DailyAppointmentStatsRepository dailyStatsRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${barbershop.rollup.lag-seconds:300}") long lagSeconds) {
+        this.appointmentRepository = appointmentRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lagSeconds = lagSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Пересчитать дни с изменившимися записями; при пустой сводке — построить ее целиком.
+     */
+    @Scheduled(initialDelayString = "${barbershop.rollup.interval-ms:60000}",
+            fixedDelayString = "${barbershop.rollup.interval-ms:60000}")
+    public synchronized void refresh() {
+        LocalDateTime runStart = LocalDateTime.now();
+
+        if (watermark == null) {
+            LocalDateTime lastRefreshedAt = dailyStatsRepository.findLastRefreshedAt();
+            if (lastRefreshedAt == null) {
+                if (rebuildAll(runStart)) {
+                    watermark = runStart.minusSeconds(lagSeconds);
+                }
+                return;
+            }
+            watermark = lastRefreshedAt.minusSeconds(lagSeconds);
+        }
+
+        List<LocalDate> changedDays = appointmentRepository.findChangedDaysSince(watermark);
+        if (!changedDays.isEmpty()) {
+            List<LocalDate[]> ranges = toRanges(changedDays);
+            int rows = 0;
+            for (LocalDate[] range : ranges) {
+                Integer refreshed = refreshDays(range[0], range[1], runStart);
+                if (refreshed == null) {
+                    // Отметка не сдвигается: оставшиеся дни пересчитаются следующим прогоном
+                    return;
+                }
+                rows += refreshed;
+            }
+            log.info("Дневная сводка: пересчитано {} дн. ({} интервалов), {} строк",
+                    changedDays.size(), ranges.size(), rows);
+        }
+        watermark = runStart.minusSeconds(lagSeconds);
+    }
+
+    /**
+     * Построить сводку целиком. false — сводку сейчас пересчитывает другой экземпляр.
+     */
+    private boolean rebuildAll(LocalDateTime runStart) {
+        List<Object[]> range = appointmentRepository.findAppointmentDateRange();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            log.info("Дневная сводка: записей нет, пересчитывать нечего");
+            return true;
+        }
+        LocalDate from = ((LocalDateTime) range.get(0)[0]).toLocalDate();
+        LocalDate to = ((LocalDateTime) range.get(0)[1]).toLocalDate().plusDays(1);
+        Integer rows = refreshDays(from, to, runStart);
+        if (rows == null) {
+            return false;
+        }
+        log.info("Дневная сводка построена за {} - {}: {} строк", from, to.minusDays(1), rows);
+        return true;
+    }
+
+    /**
+     * Пересчитать дни [from, to) в одной транзакции.
+     * null — блокировку пересчета держит другой экземпляр, дни не пересчитаны.
+     */
+    private Integer refreshDays(LocalDate from, LocalDate to, LocalDateTime refreshedAt) {
+        return transactionTemplate.execute(status -> {
+            if (!dailyStatsRepository.tryAdvisoryXactLock(REFRESH_LOCK_KEY)) {
+                log.debug("Дневная сводка: пересчет выполняет другой экземпляр, прогон пропущен");
+                return null;
+            }
+            dailyStatsRepository.deleteDays(from, to);
+            return dailyStatsRepository.insertDays(from.atStartOfDay(), to.atStartOfDay(), refreshedAt);
+        });
+    }
+
+    /**
+     * Склеить дни в непрерывные интервалы [from, to), чтобы пересчитывать их пачкой.
+     */
+    private static List<LocalDate[]> toRanges(List<LocalDate> days) {
+        List<LocalDate[]> ranges = new ArrayList<>();
+        LocalDate start = null;
+        LocalDate end = null;
+        for (LocalDate day : new TreeSet<>(days)) {
+            if (end != null && day.equals(end)) {
+                end = day.plusDays(1);
+                continue;
+            }
+            if (start != null) {
+                ranges.add(new LocalDate[]{start, end});
+            }
+            start = day;
+            end = day.plusDays(1);
+        }
+        if (start != null) {
+            ranges.add(new LocalDate[]{start, end});
+        }
+        return ranges;
+    }
+}
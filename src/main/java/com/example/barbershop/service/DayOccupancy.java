@@ -0,0 +1,138 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.TimeRangeDto;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемая карта занятости мастера на один день.
+ * День делится на слоты фиксированной длины, занятость хранится битами (96 бит при шаге 15 минут).
+ * Все представления (список занятых слотов, hex-маска, свободные интервалы)
+ * вычисляются один раз при построении, поэтому чтение из кэша ничего не аллоцирует.
+ */
+public final class DayOccupancy {
+
+    private final LocalDate date;
+    private final int slotMinutes;
+    private final int slotCount;
+    private final long[] bits;
+    private final int freeSlotCount;
+    private final List<String> occupiedSlots;
+    private final String bitmask;
+    private final List<TimeRangeDto> freeIntervals;
+
+    DayOccupancy(LocalDate date, int slotMinutes, String[] slotLabels,
+                 List<BarberScheduleIndex.Interval> intervals) {
+        this.date = date;
+        this.slotMinutes = slotMinutes;
+        this.slotCount = slotLabels.length - 1;
+        this.bits = new long[(slotCount + 63) / 64];
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        int dayMinutes = slotCount * slotMinutes;
+        for (BarberScheduleIndex.Interval interval : intervals) {
+            long startMinute = Math.max(0, Duration.between(dayStart, interval.start()).toMinutes());
+            long endMinute = Math.min(dayMinutes, Duration.between(dayStart, interval.end()).toMinutes());
+            if (endMinute <= startMinute) {
+                continue;
+            }
+            int first = (int) (startMinute / slotMinutes);
+            int last = (int) ((endMinute + slotMinutes - 1) / slotMinutes);
+            for (int slot = first; slot < last; slot++) {
+                bits[slot >> 6] |= 1L << (slot & 63);
+            }
+        }
+
+        int occupiedCount = 0;
+        for (long word : bits) {
+            occupiedCount += Long.bitCount(word);
+        }
+        this.freeSlotCount = slotCount - occupiedCount;
+        this.occupiedSlots = buildOccupiedSlots(slotLabels);
+        this.bitmask = buildBitmask();
+        this.freeIntervals = buildFreeIntervals(slotLabels);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getFreeSlotCount() {
+        return freeSlotCount;
+    }
+
+    public boolean isOccupied(int slot) {
+        return (bits[slot >> 6] & (1L << (slot & 63))) != 0;
+    }
+
+    /**
+     * Занятые слоты в формате "HH:mm".
+     */
+    public List<String> getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    /**
+     * Маска занятости в hex (см. {@link com.example.barbershop.dto.DayOccupancyDto#getBitmask()}).
+     */
+    public String getBitmask() {
+        return bitmask;
+    }
+
+    /**
+     * Свободные интервалы дня (run-length кодирование свободных слотов).
+     */
+    public List<TimeRangeDto> getFreeIntervals() {
+        return freeIntervals;
+    }
+
+    private List<String> buildOccupiedSlots(String[] slotLabels) {
+        List<String> result = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (isOccupied(slot)) {
+                result.add(slotLabels[slot]);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private String buildBitmask() {
+        char[] hex = new char[(slotCount + 3) / 4];
+        for (int i = 0; i < hex.length; i++) {
+            int firstSlot = i * 4;
+            int nibble = (int) (bits[firstSlot >> 6] >>> (firstSlot & 63)) & 0xF;
+            hex[i] = Character.forDigit(nibble, 16);
+        }
+        return new String(hex);
+    }
+
+    private List<TimeRangeDto> buildFreeIntervals(String[] slotLabels) {
+        List<TimeRangeDto> result = new ArrayList<>();
+        int slot = 0;
+        while (slot < slotCount) {
+            if (isOccupied(slot)) {
+                slot++;
+                continue;
+            }
+            int runStart = slot;
+            while (slot < slotCount && !isOccupied(slot)) {
+                slot++;
+            }
+            result.add(new TimeRangeDto(slotLabels[runStart], slotLabels[slot]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.event.BarberScheduleChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервис карт занятости мастеров по дням.
+ * Карты строятся из {@link AvailabilityService} (записи и удержания) без обращения к базе и кэшируются;
+ * при изменении расписания мастера сбрасываются только затронутые дни.
+ */
+@Service
+@RequiredArgsConstructor
+public class DayOccupancyService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AvailabilityService availabilityService;
+
+    @Value("${barbershop.occupancy.slot-minutes:15}")
+    private int slotMinutes;
+
+    @Value("${barbershop.occupancy.max-cached-days:10000}")
+    private int maxCachedDays;
+
+    private final Map<DayKey, DayOccupancy> days = new ConcurrentHashMap<>();
+
+    /**
+     * Счетчик изменений расписания. Защищает кэш от записи карты,
+     * построенной по данным, которые успели измениться во время построения.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Подписи слотов "HH:mm"; последний элемент — конец дня "24:00".
+     */
+    private String[] slotLabels;
+
+    @PostConstruct
+    void init() {
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalStateException(
+                    "barbershop.occupancy.slot-minutes должен делить сутки без остатка: " + slotMinutes);
+        }
+        int slotCount = MINUTES_PER_DAY / slotMinutes;
+        slotLabels = new String[slotCount + 1];
+        for (int slot = 0; slot <= slotCount; slot++) {
+            int minutes = slot * slotMinutes;
+            slotLabels[slot] = String.format("%02d:%02d", minutes / 60, minutes % 60);
+        }
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    /**
+     * Получить карту занятости мастера на день.
+     */
+    public DayOccupancy getOccupancy(Long barberId, LocalDate date) {
+        DayKey key = new DayKey(barberId, date);
+        DayOccupancy cached = days.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observedGeneration = generation.get();
+        LocalDateTime dayStart = date.atStartOfDay();
+        DayOccupancy built = new DayOccupancy(date, slotMinutes, slotLabels,
+                availabilityService.getBusyIntervals(barberId, dayStart, dayStart.plusDays(1)));
+        cache(key, built, observedGeneration);
+        return built;
+    }
+
+    /**
+     * Получить карты занятости мастера на каждый день периода [from, to].
+     * Недостающие в кэше дни строятся по одной выборке интервалов на весь период.
+     */
+    public List<DayOccupancy> getOccupancyRange(Long barberId, LocalDate from, LocalDate to) {
+        List<DayOccupancy> result = new ArrayList<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayOccupancy cached = days.get(new DayKey(barberId, day));
+            result.add(cached);
+            if (cached == null) {
+                if (firstMissing == null) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
+            }
+        }
+        if (firstMissing == null) {
+            return result;
+        }
+
+        long observedGeneration = generation.get();
+        List<BarberScheduleIndex.Interval> intervals = availabilityService.getBusyIntervals(barberId,
+                firstMissing.atStartOfDay(), lastMissing.plusDays(1).atStartOfDay());
+
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i) != null) {
+                continue;
+            }
+            LocalDate day = from.plusDays(i);
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime dayEnd = dayStart.plusDays(1);
+            DayOccupancy built = new DayOccupancy(day, slotMinutes, slotLabels, intervals.stream()
+                    .filter(interval -> interval.overlaps(dayStart, dayEnd))
+                    .toList());
+            cache(new DayKey(barberId, day), built, observedGeneration);
+            result.set(i, built);
+        }
+        return result;
+    }
+
+    private void cache(DayKey key, DayOccupancy built, long observedGeneration) {
+        if (generation.get() != observedGeneration) {
+            return;
+        }
+        if (days.size() >= maxCachedDays) {
+            days.clear();
+        }
+        days.put(key, built);
+        // Расписание могло измениться между проверкой и записью — тогда карта уже устарела
+        if (generation.get() != observedGeneration) {
+            days.remove(key, built);
+        }
+    }
+
+    /**
+     * Сбросить карты дней, затронутых изменением расписания.
+     */
+    @EventListener
+    public void onScheduleChanged(BarberScheduleChangedEvent event) {
+        generation.incrementAndGet();
+
+        if (event.isAllBarbers()) {
+            days.clear();
+            return;
+        }
+        if (event.isWholeSchedule()) {
+            days.keySet().removeIf(key -> key.barberId().equals(event.barberId()));
+            return;
+        }
+
+        LocalDate lastDay = event.to().isAfter(event.from())
+                ? event.to().minusNanos(1).toLocalDate()
+                : event.from().toLocalDate();
+        for (LocalDate day = event.from().toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            days.remove(new DayKey(event.barberId(), day));
+        }
+    }
+
+    private record DayKey(Long barberId, LocalDate date) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.barbershop.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Скетч HyperLogLog для оценки числа различных значений (клиентов) в постоянной памяти.
+ * 2048 регистров (точность 11 бит) — стандартная ошибка около 2,3%.
+ * Скетчи объединяются поэлементным максимумом: объединение идемпотентно и не зависит от порядка,
+ * поэтому повторное добавление того же клиента или повторное слияние ничего не портят.
+ * <p>
+ * Не потокобезопасен.
+ */
+public final class HyperLogLog {
+
+    private static final int PRECISION = 11;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Учесть значение.
+     */
+    public void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Позиция первой единицы в оставшихся битах; маркер в младшем бите ограничивает ранг сверху
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Объединить с другим скетчем (на месте).
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Оценка числа различных значений.
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // Для малых множеств точнее линейный подсчет по пустым регистрам
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Компактное представление для хранения. Пока заполнено мало регистров (день одного мастера —
+     * обычно десятки клиентов), хранятся только пары [номер регистра, значение] — 3 байта на пару;
+     * иначе все регистры подряд.
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 >= REGISTERS) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + REGISTERS);
+            buffer.put(DENSE).put(registers);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + nonZero * 3);
+        buffer.put(SPARSE);
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Восстановить скетч из {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException если данные повреждены
+     */
+    public static HyperLogLog fromBytes(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Пустые данные скетча");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte format = buffer.get();
+        byte[] registers = new byte[REGISTERS];
+        if (format == DENSE && data.length == 1 + REGISTERS) {
+            buffer.get(registers);
+        } else if (format == SPARSE && (data.length - 1) % 3 == 0) {
+            while (buffer.hasRemaining()) {
+                int index = buffer.getShort() & 0xFFFF;
+                if (index >= REGISTERS) {
+                    throw new IllegalArgumentException("Поврежденные данные скетча");
+                }
+                registers[index] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Неизвестный формат скетча");
+        }
+        return new HyperLogLog(registers);
+    }
+
+    /**
+     * Перемешивание 64-битного значения (финализатор SplitMix64): последовательные ID клиентов
+     * дают равномерно распределенные хэши.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
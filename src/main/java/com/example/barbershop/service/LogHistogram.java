@@ -0,0 +1,100 @@
+package com.example.barbershop.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма с логарифмическими корзинами (в духе HdrHistogram) для неотрицательных целых значений.
+ * Значения до 63 хранятся точно, дальше каждая степень двойки делится на 32 корзины —
+ * относительная ошибка перцентиля не больше 1/64 (около 1,6%). Размер фиксирован: 672 счетчика
+ * покрывают значения до 2^25 - 1 (для минут — больше 60 лет), большие значения попадают в последнюю корзину.
+ * <p>
+ * Запись потокобезопасна и не блокирует; чтение видит согласованный по каждой корзине снимок.
+ */
+public final class LogHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_BUCKETS * 2;
+    private static final long MAX_VALUE = (1L << 25) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Учесть значение. Отрицательные значения считаются нулем.
+     */
+    public void record(long value) {
+        counts.incrementAndGet(index(Math.max(0, Math.min(value, MAX_VALUE))));
+    }
+
+    /**
+     * Количество значений и перцентили p50/p90/p99 по текущему состоянию.
+     */
+    public Percentiles percentiles() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        int last = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+            if (snapshot[i] > 0) {
+                last = i;
+            }
+        }
+        if (total == 0) {
+            return Percentiles.EMPTY;
+        }
+        return new Percentiles(total,
+                valueAt(snapshot, total, 0.50),
+                valueAt(snapshot, total, 0.90),
+                valueAt(snapshot, total, 0.99),
+                highestValue(last));
+    }
+
+    private static long valueAt(long[] snapshot, long total, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return middleValue(i);
+            }
+        }
+        return middleValue(snapshot.length - 1);
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    private static long lowestValue(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        int top = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return (long) top << shift;
+    }
+
+    private static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : MAX_VALUE;
+    }
+
+    private static long middleValue(int index) {
+        return (lowestValue(index) + highestValue(index)) / 2;
+    }
+
+    /**
+     * Количество значений и перцентили. max — верхняя граница самой старшей непустой корзины.
+     */
+    public record Percentiles(long count, long p50, long p90, long p99, long max) {
+
+        public static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0, 0);
+    }
+}
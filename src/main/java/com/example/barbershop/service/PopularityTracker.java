@@ -0,0 +1,159 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Самые популярные услуги и мастера за последний час, день или неделю.
+ * Новые записи раскладываются по часовым корзинам (кольцо на неделю), в каждой корзине — сводки
+ * Space-Saving по услугам и мастерам. Ответ — слияние сводок корзин окна, объем работы не зависит
+ * от числа записей. Слияние завершенных часов кэшируется до смены часа, так что запрос сливает только
+ * одну сводку текущего часа. Ключи — ID услуги и мастера, а не названия.
+ */
+@Component
+@Slf4j
+public class PopularityTracker {
+
+    /**
+     * Сколько ключей помнит каждая сводка; ограничивает и максимальный K.
+     */
+    public static final int CAPACITY = 50;
+
+    private static final int HOURS = 7 * 24;
+
+    /**
+     * Окно подсчета.
+     */
+    public enum Window {
+        HOUR(1), DAY(24), WEEK(HOURS);
+
+        private final int hours;
+
+        Window(int hours) {
+            this.hours = hours;
+        }
+    }
+
+    /**
+     * Что считаем.
+     */
+    public enum Dimension {
+        SERVICES, BARBERS
+    }
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Bucket[] buckets = new Bucket[HOURS];
+
+    /**
+     * Слияние завершенных часов окна: [окно][измерение]; действительно, пока не сменился час.
+     */
+    private final SpaceSaving[][] closedHours = new SpaceSaving[Window.values().length][];
+    private long closedHoursAt = -1;
+
+    public PopularityTracker(AppointmentRepository appointmentRepository) {
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        LocalDateTime since = LocalDateTime.now().minusHours(HOURS);
+        List<Object[]> rows = appointmentRepository.findBookingsCreatedSince(since);
+        for (Object[] row : rows) {
+            record((LocalDateTime) row[0], (Long) row[1], (Long) row[2]);
+        }
+        log.info("Популярность услуг и мастеров заполнена: {} записей за неделю", rows.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        if (event.previousStatus() != null) {
+            return;
+        }
+        record(event.createdAt() != null ? event.createdAt() : LocalDateTime.now(),
+                event.serviceId(), event.barberId());
+    }
+
+    /**
+     * Первые {@code k} услуг или мастеров по числу новых записей за окно.
+     */
+    public synchronized List<SpaceSaving.Item> top(Dimension dimension, Window window, int k) {
+        long now = hourOf(LocalDateTime.now());
+        if (closedHoursAt != now) {
+            for (Window w : Window.values()) {
+                closedHours[w.ordinal()] = null;
+            }
+            closedHoursAt = now;
+        }
+
+        SpaceSaving[] closed = closedHours[window.ordinal()];
+        if (closed == null) {
+            closed = new SpaceSaving[]{new SpaceSaving(CAPACITY), new SpaceSaving(CAPACITY)};
+            for (long hour = now - window.hours + 1; hour < now; hour++) {
+                Bucket bucket = buckets[slot(hour)];
+                if (bucket != null && bucket.hour == hour) {
+                    closed[0].merge(bucket.services);
+                    closed[1].merge(bucket.barbers);
+                }
+            }
+            closedHours[window.ordinal()] = closed;
+        }
+
+        SpaceSaving result = closed[dimension.ordinal()].copy();
+        Bucket current = buckets[slot(now)];
+        if (current != null && current.hour == now) {
+            result.merge(dimension == Dimension.SERVICES ? current.services : current.barbers);
+        }
+        return result.top(Math.min(k, CAPACITY));
+    }
+
+    private synchronized void record(LocalDateTime createdAt, Long serviceId, Long barberId) {
+        long hour = hourOf(createdAt);
+        long now = hourOf(LocalDateTime.now());
+        if (hour <= now - HOURS || hour > now) {
+            return;
+        }
+        Bucket bucket = buckets[slot(hour)];
+        if (bucket == null || bucket.hour != hour) {
+            bucket = new Bucket(hour);
+            buckets[slot(hour)] = bucket;
+        }
+        bucket.services.add(serviceId, 1);
+        bucket.barbers.add(barberId, 1);
+        if (hour < now) {
+            // Запись в прошедший час (заполнение при старте) меняет закэшированные слияния
+            closedHoursAt = -1;
+        }
+    }
+
+    private static long hourOf(LocalDateTime time) {
+        return Duration.ofSeconds(time.atZone(ZoneId.systemDefault()).toEpochSecond()).toHours();
+    }
+
+    private static int slot(long hour) {
+        return (int) Math.floorMod(hour, (long) HOURS);
+    }
+
+    /**
+     * Новые записи за один час.
+     */
+    private static final class Bucket {
+        final long hour;
+        final SpaceSaving services = new SpaceSaving(CAPACITY);
+        final SpaceSaving barbers = new SpaceSaving(CAPACITY);
+
+        Bucket(long hour) {
+            this.hour = hour;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.RecurringSeries;
+import com.example.barbershop.event.BarberScheduleChangedEvent;
+import com.example.barbershop.repository.RecurringSeriesRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Активные серии повторяющихся записей мастеров в памяти.
+ * Серия хранится как правило повторения, а не как набор строк: вхождения вычисляются
+ * арифметически только для запрашиваемого периода, поэтому бессрочная серия стоит столько же,
+ * сколько одна запись. Правила мастера загружаются лениво и сбрасываются после коммита изменений серий.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecurringSeriesIndex {
+
+    private final RecurringSeriesRepository recurringSeriesRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, List<Recurrence>> byBarber = new ConcurrentHashMap<>();
+
+    /**
+     * Счетчик сбросов: не дает закэшировать правила, прочитанные до коммита изменения.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Проверить, что интервал [start, end) не пересекается ни с одним вхождением серий мастера.
+     */
+    public boolean isFree(Long barberId, LocalDateTime start, LocalDateTime end) {
+        for (Recurrence recurrence : recurrences(barberId)) {
+            if (!recurrence.occurrences(start, end).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Вхождения серий мастера, пересекающие период [from, to), в порядке начала.
+     */
+    public List<BarberScheduleIndex.Interval> getIntervals(Long barberId, LocalDateTime from, LocalDateTime to) {
+        List<Recurrence> recurrences = recurrences(barberId);
+        if (recurrences.isEmpty()) {
+            return List.of();
+        }
+        List<BarberScheduleIndex.Interval> result = new ArrayList<>();
+        for (Recurrence recurrence : recurrences) {
+            result.addAll(recurrence.occurrences(from, to));
+        }
+        result.sort(Comparator.comparing(BarberScheduleIndex.Interval::start));
+        return result;
+    }
+
+    /**
+     * Сбросить правила мастера после коммита текущей транзакции.
+     */
+    public void invalidateOnCommit(Long barberId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(barberId);
+                }
+            });
+        } else {
+            invalidate(barberId);
+        }
+    }
+
+    private void invalidate(Long barberId) {
+        generation.incrementAndGet();
+        byBarber.remove(barberId);
+        eventPublisher.publishEvent(BarberScheduleChangedEvent.wholeSchedule(barberId));
+    }
+
+    private List<Recurrence> recurrences(Long barberId) {
+        List<Recurrence> cached = byBarber.get(barberId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observedGeneration = generation.get();
+        List<Recurrence> loaded = recurringSeriesRepository.findActiveByBarberId(barberId).stream()
+                .map(Recurrence::of)
+                .toList();
+        if (generation.get() == observedGeneration) {
+            byBarber.put(barberId, loaded);
+            if (generation.get() != observedGeneration) {
+                byBarber.remove(barberId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Правило повторения серии.
+     */
+    public record Recurrence(Long seriesId, LocalDate startDate, LocalTime startTime, int periodDays,
+                             LocalDate endDate, int durationMinutes, Set<LocalDate> skippedDates) {
+
+        public static Recurrence of(RecurringSeries series) {
+            return new Recurrence(series.getId(), series.getStartDate(), series.getStartTime(),
+                    series.getIntervalWeeks() * 7, series.getEndDate(), series.getDurationMinutes(),
+                    Set.copyOf(series.getSkippedDates()));
+        }
+
+        /**
+         * Вхождения, пересекающие период [from, to).
+         * Первое подходящее вхождение вычисляется делением, перебираются только вхождения внутри периода.
+         */
+        public List<BarberScheduleIndex.Interval> occurrences(LocalDateTime from, LocalDateTime to) {
+            // Вхождение, начавшееся раньше from, может заканчиваться уже внутри периода
+            LocalDate firstDay = from.minusMinutes(durationMinutes).toLocalDate();
+            long index = 0;
+            if (firstDay.isAfter(startDate)) {
+                long days = ChronoUnit.DAYS.between(startDate, firstDay);
+                index = Math.floorDiv(days + periodDays - 1, periodDays);
+            }
+
+            List<BarberScheduleIndex.Interval> result = new ArrayList<>();
+            for (; ; index++) {
+                LocalDate date = startDate.plusDays(index * periodDays);
+                LocalDateTime start = date.atTime(startTime);
+                if ((endDate != null && date.isAfter(endDate)) || !start.isBefore(to)) {
+                    return result;
+                }
+                LocalDateTime end = start.plusMinutes(durationMinutes);
+                if (end.isAfter(from) && !skippedDates.contains(date)) {
+                    result.add(new BarberScheduleIndex.Interval(null, start, end));
+                }
+            }
+        }
+
+        /**
+         * Пересекутся ли когда-нибудь вхождения двух бессрочных серий.
+         * Разности начал вхождений — это сдвиг первых вхождений плюс любое кратное НОД периодов,
+         * поэтому достаточно проверить остаток сдвига по модулю НОД: перебор дат не нужен,
+         * и совпадение через сколько угодно лет тоже находится. Отдельно отмененных дат конечное
+         * число, и бессрочные серии все равно пересекутся на одной из следующих дат.
+         */
+        public boolean eventuallyOverlaps(Recurrence other) {
+            long gcdMinutes = gcd(periodDays, other.periodDays) * 24L * 60;
+            long offset = ChronoUnit.MINUTES.between(startDate.atTime(startTime),
+                    other.startDate.atTime(other.startTime));
+            long delta = Math.floorMod(offset, gcdMinutes);
+            // Пересечение: начало вхождения другой серии в интервале (-other.duration, duration) от нашего
+            return delta < durationMinutes || delta > gcdMinutes - other.durationMinutes;
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+
+        /**
+         * Является ли дата вхождением серии.
+         */
+        public boolean isOccurrenceDate(LocalDate date) {
+            if (date.isBefore(startDate) || (endDate != null && date.isAfter(endDate))) {
+                return false;
+            }
+            return ChronoUnit.DAYS.between(startDate, date) % periodDays == 0;
+        }
+    }
+}
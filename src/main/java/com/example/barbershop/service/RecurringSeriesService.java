@@ -0,0 +1,198 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.RecurringSeriesDto;
+import com.example.barbershop.dto.RecurringSeriesRequest;
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.entity.RecurringSeries;
+import com.example.barbershop.entity.User;
+import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.repository.RecurringSeriesRepository;
+import com.example.barbershop.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис серий повторяющихся записей.
+ * Серия сохраняется одной строкой; занятость мастера по ней вычисляет {@link RecurringSeriesIndex}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class RecurringSeriesService {
+
+    private static final int MAX_INTERVAL_WEEKS = 52;
+    private static final int NEXT_OCCURRENCES = 5;
+
+    /**
+     * Для бессрочной серии пересечения с существующими записями проверяются на этот срок вперед
+     * (но не раньше окончания самой поздней срочной серии мастера); записи, созданные позже,
+     * сами проверяются по вхождениям серии. С бессрочными сериями мастера пересечение проверяется
+     * арифметически, без ограничения срока.
+     */
+    private static final int VALIDATION_HORIZON_YEARS = 2;
+
+    private final RecurringSeriesRepository recurringSeriesRepository;
+    private final BarberServiceRepository barberServiceRepository;
+    private final UserRepository userRepository;
+    private final RecurringSeriesIndex recurringSeriesIndex;
+    private final AvailabilityService availabilityService;
+    private final BookingLockManager bookingLockManager;
+
+    /**
+     * Создать серию. Ни одно вхождение не должно пересекаться с записями, сериями и чужими удержаниями мастера.
+     */
+    @Transactional
+    public RecurringSeriesDto createSeries(RecurringSeriesRequest request) {
+        if (request.getFirstDateTime() == null || !request.getFirstDateTime().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Первое вхождение должно быть в будущем");
+        }
+        if (request.getIntervalWeeks() == null
+                || request.getIntervalWeeks() < 1 || request.getIntervalWeeks() > MAX_INTERVAL_WEEKS) {
+            throw new IllegalArgumentException("Период повторения должен быть от 1 до " + MAX_INTERVAL_WEEKS + " недель");
+        }
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getFirstDateTime().toLocalDate())) {
+            throw new IllegalArgumentException("Дата окончания серии раньше первого вхождения");
+        }
+
+        User client = userRepository.findById(request.getClientId())
+                .orElseThrow(() -> new IllegalArgumentException("Клиент не найден"));
+        BarberService barberService = barberServiceRepository.findById(request.getBarberServiceId())
+                .orElseThrow(() -> new IllegalArgumentException("Услуга мастера не найдена"));
+        Long barberId = barberService.getBarber().getId();
+
+        RecurringSeries series = new RecurringSeries();
+        series.setClient(client);
+        series.setBarberService(barberService);
+        series.setBarber(barberService.getBarber());
+        series.setStartDate(request.getFirstDateTime().toLocalDate());
+        series.setStartTime(request.getFirstDateTime().toLocalTime());
+        series.setIntervalWeeks(request.getIntervalWeeks());
+        series.setEndDate(request.getEndDate());
+        series.setDurationMinutes(barberService.getActualDurationMinutes());
+        series.setStatus(RecurringSeries.SeriesStatus.ACTIVE);
+        series.setCreatedAt(LocalDateTime.now());
+
+        // Серия занимает время мастера так же, как запись, поэтому проверка и сохранение — под его блокировкой
+        bookingLockManager.lockBarberForTransaction(barberId);
+
+        RecurringSeriesIndex.Recurrence recurrence = RecurringSeriesIndex.Recurrence.of(series);
+        LocalDateTime validateTo;
+        if (request.getEndDate() != null) {
+            validateTo = request.getEndDate().plusDays(1).atStartOfDay();
+        } else {
+            validateTo = request.getFirstDateTime().plusYears(VALIDATION_HORIZON_YEARS);
+            for (RecurringSeries existing : recurringSeriesRepository.findActiveByBarberId(barberId)) {
+                if (existing.getEndDate() == null) {
+                    if (recurrence.eventuallyOverlaps(RecurringSeriesIndex.Recurrence.of(existing))) {
+                        throw new IllegalArgumentException("Серия пересекается с бессрочной серией " + existing.getId());
+                    }
+                } else if (existing.getEndDate().plusDays(1).atStartOfDay().isAfter(validateTo)) {
+                    validateTo = existing.getEndDate().plusDays(1).atStartOfDay();
+                }
+            }
+        }
+        for (BarberScheduleIndex.Interval occurrence : recurrence.occurrences(request.getFirstDateTime(), validateTo)) {
+            if (!availabilityService.isFree(barberId, occurrence.start(), occurrence.end(), client.getId())) {
+                throw new IllegalArgumentException("Вхождение " + occurrence.start() + " пересекается с другой записью");
+            }
+        }
+
+        RecurringSeries saved = recurringSeriesRepository.save(series);
+        recurringSeriesIndex.invalidateOnCommit(barberId);
+
+        log.info("Создана серия {}: клиент={}, мастер={}, каждые {} нед. в {}",
+                saved.getId(), client.getId(), barberId, saved.getIntervalWeeks(), saved.getStartTime());
+        return convertToDto(saved);
+    }
+
+    /**
+     * Отменить одно вхождение серии.
+     */
+    @Transactional
+    public RecurringSeriesDto skipOccurrence(Long seriesId, LocalDate date) {
+        RecurringSeries series = findActive(seriesId);
+        if (!RecurringSeriesIndex.Recurrence.of(series).isOccurrenceDate(date)) {
+            throw new IllegalArgumentException("Дата " + date + " не является вхождением серии");
+        }
+        series.getSkippedDates().add(date);
+        recurringSeriesIndex.invalidateOnCommit(series.getBarber().getId());
+        return convertToDto(recurringSeriesRepository.save(series));
+    }
+
+    /**
+     * Отменить серию целиком.
+     */
+    @Transactional
+    public RecurringSeriesDto cancelSeries(Long seriesId) {
+        RecurringSeries series = findActive(seriesId);
+        series.setStatus(RecurringSeries.SeriesStatus.CANCELLED);
+        recurringSeriesIndex.invalidateOnCommit(series.getBarber().getId());
+        return convertToDto(recurringSeriesRepository.save(series));
+    }
+
+    /**
+     * Найти серии клиента.
+     */
+    public List<RecurringSeriesDto> getClientSeries(Long clientId) {
+        return recurringSeriesRepository.findByClientIdOrderByCreatedAtDesc(clientId).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Вхождения серии в периоде [from, to].
+     */
+    public List<LocalDateTime> getOccurrences(Long seriesId, LocalDate from, LocalDate to) {
+        RecurringSeries series = recurringSeriesRepository.findById(seriesId)
+                .orElseThrow(() -> new IllegalArgumentException("Серия не найдена"));
+        return RecurringSeriesIndex.Recurrence.of(series)
+                .occurrences(from.atStartOfDay(), to.plusDays(1).atStartOfDay()).stream()
+                .map(BarberScheduleIndex.Interval::start)
+                .toList();
+    }
+
+    private RecurringSeries findActive(Long seriesId) {
+        RecurringSeries series = recurringSeriesRepository.findById(seriesId)
+                .orElseThrow(() -> new IllegalArgumentException("Серия не найдена"));
+        if (series.getStatus() != RecurringSeries.SeriesStatus.ACTIVE) {
+            throw new IllegalArgumentException("Серия уже отменена");
+        }
+        return series;
+    }
+
+    private RecurringSeriesDto convertToDto(RecurringSeries series) {
+        RecurringSeriesDto dto = new RecurringSeriesDto();
+        dto.setId(series.getId());
+        dto.setClientId(series.getClient().getId());
+        dto.setBarberServiceId(series.getBarberService().getId());
+        dto.setBarberId(series.getBarber().getId());
+        dto.setStartDate(series.getStartDate());
+        dto.setStartTime(series.getStartTime());
+        dto.setIntervalWeeks(series.getIntervalWeeks());
+        dto.setEndDate(series.getEndDate());
+        dto.setDurationMinutes(series.getDurationMinutes());
+        dto.setStatus(series.getStatus().name());
+        dto.setSkippedDates(series.getSkippedDates().stream().sorted().toList());
+
+        if (series.getStatus() == RecurringSeries.SeriesStatus.ACTIVE) {
+            // Ближайшие вхождения: окно в NEXT_OCCURRENCES периодов гарантированно их содержит
+            LocalDateTime now = LocalDateTime.now();
+            dto.setNextOccurrences(RecurringSeriesIndex.Recurrence.of(series)
+                    .occurrences(now, now.plusWeeks((long) series.getIntervalWeeks()
+                            * (NEXT_OCCURRENCES + series.getSkippedDates().size())))
+                    .stream()
+                    .limit(NEXT_OCCURRENCES)
+                    .map(BarberScheduleIndex.Interval::start)
+                    .toList());
+        }
+        return dto;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 public class ServiceCatalogService {
 
     private final ServiceRepository serviceRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     public List<ServiceItem> getAllServices() {
         return serviceRepository.findAll();
@@ -35,7 +36,9 @@ public class ServiceCatalogService {
         service.setBaseDurationMinutes(baseDurationMinutes);
         service.setBasePrice(basePrice);
 
-        return serviceRepository.save(service);
+        ServiceItem saved = serviceRepository.save(service);
+        catalogSnapshotService.refreshOnCommit();
+        return saved;
     }
 
     @Transactional
@@ -55,7 +58,9 @@ public class ServiceCatalogService {
             service.setBasePrice(updatedService.getBasePrice());
         }
 
-        return serviceRepository.save(service);
+        ServiceItem saved = serviceRepository.save(service);
+        catalogSnapshotService.refreshOnCommit();
+        return saved;
     }
 
     @Transactional
@@ -64,5 +69,6 @@ public class ServiceCatalogService {
             throw new IllegalArgumentException("Услуга не найдена");
         }
         serviceRepository.deleteById(id);
+        catalogSnapshotService.refreshOnCommit();
     }
 }
\ No newline at end of file
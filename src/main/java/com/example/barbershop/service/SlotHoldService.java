@@ -0,0 +1,258 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.event.BarberScheduleChangedEvent;
+import com.example.barbershop.repository.BarberServiceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Временные удержания слотов, пока клиент заполняет форму записи.
+ * Удержание резервирует интервал мастера на ограниченное время (TTL) и учитывается
+ * всеми проверками доступности, кроме проверок самого клиента. У клиента не больше
+ * одного удержания: новое заменяет предыдущее. Истечение — через колесо таймеров,
+ * а не отдельную задачу на каждое удержание.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlotHoldService {
+
+    private static final String SLOT_HELD_MESSAGE = "Выбранное время занято или удерживается другим клиентом.";
+
+    private final BarberServiceRepository barberServiceRepository;
+    private final BarberScheduleIndex scheduleIndex;
+    private final RecurringSeriesIndex recurringSeriesIndex;
+    private final WorkingScheduleService workingScheduleService;
+    private final BookingLockManager bookingLockManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${barbershop.holds.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${barbershop.holds.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${barbershop.holds.wheel-size:512}")
+    private int wheelSize;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, BarberHolds> byBarber = new ConcurrentHashMap<>();
+    private final Map<Long, String> holdIdByClient = new ConcurrentHashMap<>();
+
+    private TimerWheel<Hold> expiryWheel;
+
+    @PostConstruct
+    void init() {
+        if (ttlSeconds <= 0) {
+            throw new IllegalStateException("barbershop.holds.ttl-seconds должен быть положительным");
+        }
+        expiryWheel = new TimerWheel<>("slot-hold-expiry", tickMillis, wheelSize, this::expire);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        expiryWheel.stop();
+    }
+
+    /**
+     * Удержать слот услуги мастера для клиента. Предыдущее удержание клиента снимается.
+     * Выполняется под той же блокировкой мастера, что и бронирование: запись, прошедшая проверку,
+     * но еще не закоммиченная, уже есть в индексе расписания, и удержание ее не перекроет.
+     *
+     * @throws SlotUnavailableException если время занято записью или удерживается другим клиентом
+     * @throws IllegalArgumentException если время в прошлом или вне рабочих часов мастера
+     */
+    @Transactional
+    public Hold hold(Long clientId, Long barberServiceId, LocalDateTime start) {
+        BarberService barberService = barberServiceRepository.findById(barberServiceId)
+                .orElseThrow(() -> new IllegalArgumentException("Услуга мастера не найдена"));
+        if (start == null || !start.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Нельзя удержать время в прошлом");
+        }
+
+        Long barberId = barberService.getBarber().getId();
+        LocalDateTime end = start.plusMinutes(barberService.getActualDurationMinutes());
+        bookingLockManager.lockBarberForTransaction(barberId);
+        if (!workingScheduleService.isWithinWorkingHours(barberId, start, end)) {
+            throw new IllegalArgumentException(AppointmentService.OUTSIDE_WORKING_HOURS_MESSAGE);
+        }
+        Hold hold = new Hold(UUID.randomUUID().toString(), barberId, clientId, start, end,
+                Instant.now().plusSeconds(ttlSeconds));
+
+        BarberHolds barberHolds = byBarber.computeIfAbsent(barberId, id -> new BarberHolds());
+        synchronized (barberHolds) {
+            if (!scheduleIndex.isFree(barberId, start, end) || !recurringSeriesIndex.isFree(barberId, start, end)
+                    || barberHolds.isHeld(start, end, clientId)) {
+                throw new SlotUnavailableException(SLOT_HELD_MESSAGE);
+            }
+            barberHolds.add(hold);
+            holds.put(hold.id(), hold);
+        }
+
+        String previousId = holdIdByClient.put(clientId, hold.id());
+        if (previousId != null) {
+            remove(holds.get(previousId));
+        }
+        expiryWheel.schedule(hold, hold.expiresAt());
+        eventPublisher.publishEvent(new BarberScheduleChangedEvent(barberId, start, end));
+
+        log.debug("Слот удержан: клиент={}, мастер={}, время={} - {}", clientId, barberId, start, end);
+        return hold;
+    }
+
+    /**
+     * Снять удержание клиента.
+     */
+    public boolean release(Long clientId, String holdId) {
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.clientId().equals(clientId)) {
+            return false;
+        }
+        return remove(hold);
+    }
+
+    /**
+     * Снять удержание клиента после коммита текущей транзакции (запись создана — удержание больше не нужно).
+     */
+    public void releaseClientHoldOnCommit(Long clientId) {
+        Runnable release = () -> {
+            String holdId = holdIdByClient.get(clientId);
+            if (holdId != null) {
+                remove(holds.get(holdId));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
+    }
+
+    /**
+     * Пересекается ли интервал с активным удержанием другого клиента.
+     *
+     * @param exceptClientId клиент, чьи удержания не учитываются (null — учитывать все)
+     */
+    public boolean isHeld(Long barberId, LocalDateTime start, LocalDateTime end, Long exceptClientId) {
+        BarberHolds barberHolds = byBarber.get(barberId);
+        if (barberHolds == null) {
+            return false;
+        }
+        synchronized (barberHolds) {
+            return barberHolds.isHeld(start, end, exceptClientId);
+        }
+    }
+
+    /**
+     * Активные удержания мастера, пересекающие период [from, to), в виде интервалов.
+     */
+    public List<BarberScheduleIndex.Interval> getHeldIntervals(Long barberId, LocalDateTime from,
+                                                               LocalDateTime to, Long exceptClientId) {
+        BarberHolds barberHolds = byBarber.get(barberId);
+        if (barberHolds == null) {
+            return List.of();
+        }
+        synchronized (barberHolds) {
+            return barberHolds.intervals(from, to, exceptClientId);
+        }
+    }
+
+    private void expire(Hold hold) {
+        if (remove(hold)) {
+            log.debug("Удержание {} истекло", hold.id());
+        }
+    }
+
+    private boolean remove(Hold hold) {
+        if (hold == null || !holds.remove(hold.id(), hold)) {
+            return false;
+        }
+        holdIdByClient.remove(hold.clientId(), hold.id());
+        BarberHolds barberHolds = byBarber.get(hold.barberId());
+        if (barberHolds != null) {
+            synchronized (barberHolds) {
+                barberHolds.remove(hold);
+            }
+        }
+        eventPublisher.publishEvent(new BarberScheduleChangedEvent(hold.barberId(), hold.start(), hold.end()));
+        return true;
+    }
+
+    /**
+     * Удержание слота.
+     */
+    public record Hold(String id, Long barberId, Long clientId,
+                       LocalDateTime start, LocalDateTime end, Instant expiresAt) {
+
+        boolean isActive(Instant now) {
+            return expiresAt.isAfter(now);
+        }
+
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return otherStart.isBefore(end) && otherEnd.isAfter(start);
+        }
+    }
+
+    /**
+     * Удержания одного мастера. Доступ — под монитором объекта.
+     * Истекшие, но еще не снятые колесом удержания игнорируются при чтении.
+     */
+    private static final class BarberHolds {
+
+        private final List<Hold> items = new ArrayList<>();
+
+        void add(Hold hold) {
+            items.add(hold);
+        }
+
+        void remove(Hold hold) {
+            items.remove(hold);
+        }
+
+        boolean isHeld(LocalDateTime start, LocalDateTime end, Long exceptClientId) {
+            Instant now = Instant.now();
+            for (Hold hold : items) {
+                if (hold.isActive(now) && hold.overlaps(start, end)
+                        && !Objects.equals(hold.clientId(), exceptClientId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<BarberScheduleIndex.Interval> intervals(LocalDateTime from, LocalDateTime to, Long exceptClientId) {
+            Instant now = Instant.now();
+            List<BarberScheduleIndex.Interval> result = new ArrayList<>();
+            for (Hold hold : items) {
+                if (hold.isActive(now) && hold.overlaps(from, to)
+                        && !Objects.equals(hold.clientId(), exceptClientId)) {
+                    result.add(new BarberScheduleIndex.Interval(null, hold.start(), hold.end()));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.AvailableSlotDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поиск ближайших свободных слотов на услугу среди всех мастеров.
+ * Каждый мастер сканируется параллельно по занятым интервалам (записи и удержания) в хронологическом порядке;
+ * скан прекращается, как только его слоты уже не могут попасть в текущий топ-K.
+ */
+@Service
+@Slf4j
+public class SlotSearchService {
+
+    private static final int MAX_WINDOW_DAYS = 31;
+    private static final int MAX_LIMIT = 50;
+
+    private static final Comparator<AvailableSlotDto> EARLIEST_FIRST =
+            Comparator.comparing(AvailableSlotDto::getStart)
+                    .thenComparing(AvailableSlotDto::getBarberId);
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final AvailabilityService availabilityService;
+    private final DayOccupancyService dayOccupancyService;
+    private final ExecutorService executor;
+
+    public SlotSearchService(CatalogSnapshotService catalogSnapshotService,
+                             AvailabilityService availabilityService,
+                             DayOccupancyService dayOccupancyService,
+                             @Value("${barbershop.search.threads:4}") int threads) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.availabilityService = availabilityService;
+        this.dayOccupancyService = dayOccupancyService;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "slot-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Найти K ближайших свободных слотов на услугу у любых мастеров.
+     *
+     * @param timeFrom самое раннее время начала в течение дня (null — с начала суток)
+     * @param timeTo   самое позднее время окончания в течение дня (null — до конца суток)
+     */
+    public List<AvailableSlotDto> findFirstAvailable(Long serviceId, LocalDate fromDate, LocalDate toDate,
+                                                     LocalTime timeFrom, LocalTime timeTo, int limit) {
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("Дата окончания раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Период поиска не может превышать " + MAX_WINDOW_DAYS + " дней");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Количество слотов должно быть от 1 до " + MAX_LIMIT);
+        }
+        if (timeFrom != null && timeTo != null && !timeTo.isAfter(timeFrom)) {
+            throw new IllegalArgumentException("Время окончания должно быть позже времени начала");
+        }
+
+        List<CatalogSnapshot.BarberServiceEntry> candidates =
+                catalogSnapshotService.get().getBarberServicesByService(serviceId);
+        int step = dayOccupancyService.getSlotMinutes();
+        LocalDateTime earliest = alignUp(LocalDateTime.now(), step);
+        TopK top = new TopK(limit);
+
+        CompletableFuture<?>[] scans = candidates.stream()
+                .map(candidate -> CompletableFuture.runAsync(() -> scanBarber(candidate,
+                        fromDate, toDate, timeFrom, timeTo, earliest, step, top), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(scans).join();
+
+        List<AvailableSlotDto> result = top.sorted();
+        log.debug("Поиск слотов на услугу {}: {} мастеров, найдено {}", serviceId, candidates.size(), result.size());
+        return result;
+    }
+
+    private void scanBarber(CatalogSnapshot.BarberServiceEntry candidate, LocalDate fromDate, LocalDate toDate,
+                            LocalTime timeFrom, LocalTime timeTo, LocalDateTime earliest,
+                            int step, TopK top) {
+        Long barberId = candidate.barberId();
+        int duration = candidate.actualDurationMinutes();
+
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            LocalDateTime windowStart = alignUp(timeFrom != null ? day.atTime(timeFrom) : day.atStartOfDay(), step);
+            LocalDateTime windowEnd = timeTo != null ? day.atTime(timeTo) : day.plusDays(1).atStartOfDay();
+            if (windowStart.isBefore(earliest)) {
+                windowStart = earliest;
+            }
+            if (!top.canImprove(windowStart)) {
+                return;
+            }
+            if (windowStart.plusMinutes(duration).isAfter(windowEnd)) {
+                continue;
+            }
+
+            List<BarberScheduleIndex.Interval> busy = availabilityService.getBusyIntervals(barberId, windowStart, windowEnd);
+            int next = 0;
+            LocalDateTime start = windowStart;
+            while (!start.plusMinutes(duration).isAfter(windowEnd)) {
+                if (!top.canImprove(start)) {
+                    return;
+                }
+                LocalDateTime end = start.plusMinutes(duration);
+                while (next < busy.size() && !busy.get(next).end().isAfter(start)) {
+                    next++;
+                }
+                if (next < busy.size() && busy.get(next).start().isBefore(end)) {
+                    // Перепрыгиваем занятый интервал целиком
+                    start = alignUp(busy.get(next).end(), step);
+                    continue;
+                }
+                top.offer(new AvailableSlotDto(candidate.id(), barberId, start, end, candidate.actualPrice()));
+                start = start.plusMinutes(step);
+            }
+        }
+    }
+
+    /**
+     * Округлить время вверх до границы слота.
+     */
+    private static LocalDateTime alignUp(LocalDateTime time, int step) {
+        LocalDateTime truncated = time.truncatedTo(ChronoUnit.MINUTES);
+        if (truncated.isBefore(time)) {
+            truncated = truncated.plusMinutes(1);
+        }
+        int minuteOfDay = truncated.getHour() * 60 + truncated.getMinute();
+        int remainder = minuteOfDay % step;
+        return remainder == 0 ? truncated : truncated.plusMinutes(step - remainder);
+    }
+
+    /**
+     * Общий для всех сканов топ-K самых ранних слотов.
+     * Порог (самый поздний слот в заполненном топе) читается без блокировки.
+     */
+    private static final class TopK {
+
+        private final int limit;
+        private final PriorityQueue<AvailableSlotDto> heap = new PriorityQueue<>(EARLIEST_FIRST.reversed());
+        private volatile LocalDateTime threshold;
+
+        TopK(int limit) {
+            this.limit = limit;
+        }
+
+        boolean canImprove(LocalDateTime start) {
+            LocalDateTime current = threshold;
+            return current == null || start.isBefore(current);
+        }
+
+        synchronized void offer(AvailableSlotDto slot) {
+            if (heap.size() < limit) {
+                heap.add(slot);
+            } else if (EARLIEST_FIRST.compare(slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            } else {
+                return;
+            }
+            if (heap.size() == limit) {
+                threshold = heap.peek().getStart();
+            }
+        }
+
+        synchronized List<AvailableSlotDto> sorted() {
+            List<AvailableSlotDto> result = new ArrayList<>(heap);
+            result.sort(EARLIEST_FIRST);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.barbershop.service;
+
+/**
+ * Время мастера занято записью или удерживается другим клиентом.
+ * Отличается от прочих ошибок запроса тем, что клиенту нужно выбрать другое время (HTTP 409).
+ */
+public class SlotUnavailableException extends IllegalArgumentException {
+
+    public SlotUnavailableException(String message) {
+        super(message);
+    }
+}
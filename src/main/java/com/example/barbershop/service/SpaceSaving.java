@@ -0,0 +1,106 @@
+package com.example.barbershop.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка Space-Saving для поиска самых частых ключей в потоке в фиксированной памяти.
+ * Хранит не больше {@code capacity} счетчиков; когда места нет, новый ключ вытесняет ключ
+ * с наименьшим счетчиком и наследует его значение. Поэтому счетчик — оценка сверху,
+ * завышенная не больше чем на {@code error}, а любой ключ с частотой больше N / capacity гарантированно в сводке.
+ * <p>
+ * Не потокобезопасна.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Counter> counters;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Учесть ключ {@code count} раз.
+     */
+    public void add(Long key, long count) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(count, 0));
+            return;
+        }
+        Map.Entry<Long, Counter> min = null;
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.getValue().count) {
+                min = entry;
+            }
+        }
+        counters.remove(min.getKey());
+        long inherited = min.getValue().count;
+        counters.put(key, new Counter(inherited + count, inherited));
+    }
+
+    /**
+     * Добавить к этой сводке другую (на месте): счетчики общих ключей складываются,
+     * при переполнении остаются самые большие.
+     */
+    public void merge(SpaceSaving other) {
+        for (Map.Entry<Long, Counter> entry : other.counters.entrySet()) {
+            Counter counter = counters.get(entry.getKey());
+            if (counter != null) {
+                counter.count += entry.getValue().count;
+                counter.error += entry.getValue().error;
+            } else {
+                counters.put(entry.getKey(), new Counter(entry.getValue().count, entry.getValue().error));
+            }
+        }
+        if (counters.size() > capacity) {
+            List<Map.Entry<Long, Counter>> sorted = new ArrayList<>(counters.entrySet());
+            sorted.sort(Comparator.comparingLong((Map.Entry<Long, Counter> e) -> e.getValue().count).reversed());
+            for (Map.Entry<Long, Counter> entry : sorted.subList(capacity, sorted.size())) {
+                counters.remove(entry.getKey());
+            }
+        }
+    }
+
+    public SpaceSaving copy() {
+        SpaceSaving copy = new SpaceSaving(capacity);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Первые {@code k} ключей по убыванию счетчика.
+     */
+    public List<Item> top(int k) {
+        return counters.entrySet().stream()
+                .map(entry -> new Item(entry.getKey(), entry.getValue().count, entry.getValue().error))
+                .sorted(Comparator.comparingLong(Item::count).reversed().thenComparing(Item::key))
+                .limit(k)
+                .toList();
+    }
+
+    /**
+     * Ключ, оценка частоты сверху и максимальное завышение.
+     */
+    public record Item(Long key, long count, long error) {
+    }
+
+    private static final class Counter {
+        long count;
+        long error;
+
+        Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
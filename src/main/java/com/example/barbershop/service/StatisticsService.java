@@ -8,8 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,37 +19,44 @@ import java.util.Map;
 @Slf4j
 public class StatisticsService {
 
-    private final UserRepository userRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final DailyAppointmentStatsRepository dailyStatsRepository;
     private final ServiceRepository serviceRepository;
     private final BarberRepository barberRepository;
     private final BarberServiceRepository barberServiceRepository;
+    private final UserStatsService userStatsService;
+    private final AppointmentCounters appointmentCounters;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final BookingHistograms bookingHistograms;
+    private final PopularityTracker popularityTracker;
 
     /**
-     * Общая статистика системы
+     * Общая статистика системы.
+     * Читает счетчики в памяти и снимок каталога — без запросов по таблице записей.
      */
     public Map<String, Object> getGeneralStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
         // Количество пользователей по ролям
-        long totalUsers = userRepository.count();
-        long clients = userRepository.countByRole(User.Role.CLIENT);
-        long barbers = userRepository.countByRole(User.Role.BARBER);
-        long admins = userRepository.countByRole(User.Role.ADMIN);
+        UserStatsService.UserStats userStats = userStatsService.getUserStats();
+        long totalUsers = userStats.total();
+        long clients = userStats.clients();
+        long barbers = userStats.barbers();
+        long admins = userStats.admins();
 
         // Количество записей
-        long totalAppointments = appointmentRepository.count();
-        long scheduledAppointments = appointmentRepository.countByStatus(Appointment.AppointmentStatus.SCHEDULED);
-        long completedAppointments = appointmentRepository.countByStatus(Appointment.AppointmentStatus.COMPLETED);
-        long cancelledAppointments = appointmentRepository.countByStatus(Appointment.AppointmentStatus.CANCELLED);
+        AppointmentCounters.Counts appointments = appointmentCounters.getTotals();
+        long totalAppointments = appointments.total();
+        long scheduledAppointments = appointments.scheduled();
+        long completedAppointments = appointments.completed();
+        long cancelledAppointments = appointments.cancelled();
 
         // Количество услуг
-        long totalServices = serviceRepository.count();
-        long totalBarberServices = barberServiceRepository.count();
+        CatalogSnapshot catalog = catalogSnapshotService.get();
+        long totalServices = catalog.getServices().size();
+        long totalBarberServices = catalog.getBarberServices().size();
 
         // Выручка (только завершенные записи)
-        Double totalRevenue = appointmentRepository.calculateTotalRevenue();
-        if (totalRevenue == null) totalRevenue = 0.0;
+        Double totalRevenue = appointments.revenue();
 
         // Средний чек
         Double averageCheck = completedAppointments > 0 ? totalRevenue / completedAppointments : 0.0;
@@ -73,64 +79,70 @@ public class StatisticsService {
     }
 
     /**
-     * Статистика за последние 7 дней
+     * Статистика за последние 7 дней (включая сегодня) по дневной сводке записей.
      */
     public Map<String, Object> getWeeklyStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+        LocalDate today = LocalDate.now();
+        Map<String, Object> stats = getPeriodStatistics(today.minusDays(6), today);
 
         // Новые пользователи за неделю
-        long totalUsers = userRepository.count();
-        long newUsers = totalUsers;
+        long newUsers = userStatsService.getUserStats().total();
+        stats.put("newUsers", newUsers);
 
-        // Новые записи за неделю
-        long newAppointments = appointmentRepository.countByCreatedAtAfter(weekAgo);
+        // Самые популярные услуги за неделю — по ID услуги из счетчиков популярности
+        stats.put("popularServices", getTop(PopularityTracker.Dimension.SERVICES, PopularityTracker.Window.WEEK, 5));
 
-        // Выручка за неделю
-        Double weeklyRevenue = appointmentRepository.calculateRevenueAfterDate(weekAgo);
-        if (weeklyRevenue == null) weeklyRevenue = 0.0;
+        return stats;
+    }
 
-        // Самые популярные услуги
+    /**
+     * Статистика за дни приема [from, to] включительно по дневной сводке записей.
+     * Читает несколько сотен строк сводки вместо сканирования таблицы записей.
+     */
+    public Map<String, Object> getPeriodStatistics(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания периода раньше даты начала");
+        }
+        Map<String, Object> stats = new HashMap<>();
+        LocalDate toExclusive = to.plusDays(1);
 
-        List<Object[]> popularServices = appointmentRepository.findPopularServicesLast7Days(weekAgo);
+        // Записи за период
+        long newAppointments = dailyStatsRepository.sumAppointments(from, toExclusive);
 
-        stats.put("newUsers", newUsers);
+        // Выручка за период
+        Double periodRevenue = dailyStatsRepository.sumCompletedRevenue(from, toExclusive);
+        if (periodRevenue == null) periodRevenue = 0.0;
+
+        stats.put("from", from);
+        stats.put("to", to);
         stats.put("newAppointments", newAppointments);
-        stats.put("weeklyRevenue", String.format("%.2f ₽", weeklyRevenue));
-        stats.put("popularServices", popularServices);
+        stats.put("weeklyRevenue", String.format("%.2f ₽", periodRevenue));
 
         return stats;
     }
 
     /**
-     * Статистика по мастерам
+     * Статистика по мастерам.
+     * Количество записей и выручка берутся из счетчиков в памяти, мастера — одним запросом.
      */
     public Map<String, Object> getBarberStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Barber> allBarbers = barberRepository.findAll();
+        List<Barber> allBarbers = barberRepository.findAllWithUser();
         stats.put("totalBarbers", allBarbers.size());
 
+        Map<Long, AppointmentCounters.Counts> counts = appointmentCounters.getByBarber();
+
         // Собираем статистику по каждому мастеру
         List<Map<String, Object>> barberStats = allBarbers.stream().map(barber -> {
             Map<String, Object> barberData = new HashMap<>();
-
-            // Количество записей мастера
-            long barberAppointments = appointmentRepository.countByBarber(barber.getId());
-
-            // Выручка мастера
-            Double barberRevenue = appointmentRepository.calculateRevenueByBarber(barber.getId());
-            if (barberRevenue == null) barberRevenue = 0.0;
-
-            // Средняя оценка (можно добавить позже)
+            AppointmentCounters.Counts summary = counts.getOrDefault(barber.getId(), AppointmentCounters.Counts.EMPTY);
 
             barberData.put("id", barber.getId());
             barberData.put("name", barber.getUser().getFirstName() + " " + barber.getUser().getLastName());
             barberData.put("email", barber.getUser().getEmail());
             barberData.put("specialization", barber.getSpecialization());
-            barberData.put("appointmentsCount", barberAppointments);
-            barberData.put("revenue", String.format("%.2f ₽", barberRevenue));
+            putCounts(barberData, summary);
 
             return barberData;
         }).toList();
@@ -140,7 +152,8 @@ public class StatisticsService {
     }
 
     /**
-     * Статистика по услугам
+     * Статистика по услугам.
+     * Записи берутся из счетчиков в памяти, мастера по услугам — одним сгруппированным запросом.
      */
     public Map<String, Object> getServiceStatistics() {
         Map<String, Object> stats = new HashMap<>();
@@ -148,22 +161,23 @@ public class StatisticsService {
         List<ServiceItem> allServices = serviceRepository.findAll();
         stats.put("totalServices", allServices.size());
 
+        Map<Long, AppointmentCounters.Counts> counts = appointmentCounters.getByService();
+        Map<Long, Long> barbersByService = new HashMap<>();
+        for (Object[] row : barberServiceRepository.countBarbersGroupedByService()) {
+            barbersByService.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
         // Статистика по каждой услуге
         List<Map<String, Object>> serviceStats = allServices.stream().map(service -> {
             Map<String, Object> serviceData = new HashMap<>();
-
-            // Количество записей на эту услугу
-            long serviceAppointments = appointmentRepository.countByService(service.getId());
-
-            // Количество мастеров, предоставляющих услугу
-            long barbersCount = barberServiceRepository.countByServiceId(service.getId());
+            AppointmentCounters.Counts summary = counts.getOrDefault(service.getId(), AppointmentCounters.Counts.EMPTY);
 
             serviceData.put("id", service.getId());
             serviceData.put("name", service.getName());
             serviceData.put("price", service.getBasePrice());
             serviceData.put("duration", service.getBaseDurationMinutes());
-            serviceData.put("appointmentsCount", serviceAppointments);
-            serviceData.put("barbersCount", barbersCount);
+            serviceData.put("barbersCount", barbersByService.getOrDefault(service.getId(), 0L));
+            putCounts(serviceData, summary);
 
             return serviceData;
         }).toList();
@@ -171,4 +185,147 @@ public class StatisticsService {
         stats.put("services", serviceStats);
         return stats;
     }
+
+    /**
+     * Первые {@code k} услуг или мастеров по числу новых записей за окно: id, название, количество.
+     * Читает счетчики популярности в памяти — без запросов по таблице записей.
+     */
+    public List<Map<String, Object>> getTop(PopularityTracker.Dimension dimension, PopularityTracker.Window window, int k) {
+        CatalogSnapshot catalog = catalogSnapshotService.get();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (SpaceSaving.Item item : popularityTracker.top(dimension, window, k)) {
+            String name;
+            if (dimension == PopularityTracker.Dimension.SERVICES) {
+                CatalogSnapshot.ServiceEntry service = catalog.findService(item.key());
+                name = service != null ? service.name() : "Услуга #" + item.key();
+            } else {
+                CatalogSnapshot.BarberEntry barber = catalog.findBarber(item.key());
+                name = barber != null ? barber.fullName() : "Мастер #" + item.key();
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", item.key());
+            row.put("name", name);
+            row.put("count", item.count());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Перцентили величины в минутах: всего, по мастерам или по услугам.
+     * Читает гистограммы в памяти — без запросов по таблице записей.
+     */
+    public List<Map<String, Object>> getDistribution(BookingHistograms.Metric metric, TimeSeriesService.GroupBy groupBy) {
+        return getDistribution(catalogSnapshotService.get(), metric, groupBy);
+    }
+
+    private List<Map<String, Object>> getDistribution(CatalogSnapshot catalog, BookingHistograms.Metric metric,
+                                                      TimeSeriesService.GroupBy groupBy) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        switch (groupBy) {
+            case BARBER -> {
+                Map<Long, LogHistogram.Percentiles> byBarber = bookingHistograms.getByBarber(metric);
+                for (CatalogSnapshot.BarberEntry barber : catalog.getBarbers()) {
+                    rows.add(distributionRow(barber.id(), barber.fullName(),
+                            byBarber.getOrDefault(barber.id(), LogHistogram.Percentiles.EMPTY)));
+                }
+            }
+            case SERVICE -> {
+                Map<Long, LogHistogram.Percentiles> byService = bookingHistograms.getByService(metric);
+                for (CatalogSnapshot.ServiceEntry service : catalog.getServices()) {
+                    rows.add(distributionRow(service.id(), service.name(),
+                            byService.getOrDefault(service.id(), LogHistogram.Percentiles.EMPTY)));
+                }
+            }
+            case NONE -> rows.add(distributionRow(null, "Все записи", bookingHistograms.getTotal(metric)));
+        }
+        return rows;
+    }
+
+    /**
+     * Распределения для страницы статистики: за сколько записываются и сколько длится прием,
+     * p50 / p90 / p99 по мастерам и по услугам. Первая строка каждого списка — все записи.
+     */
+    public Map<String, Object> getDistributionStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("barbers", formatDistributions(TimeSeriesService.GroupBy.BARBER));
+        stats.put("services", formatDistributions(TimeSeriesService.GroupBy.SERVICE));
+        return stats;
+    }
+
+    private List<Map<String, Object>> formatDistributions(TimeSeriesService.GroupBy groupBy) {
+        // Обе величины строятся по одному снимку справочника и сопоставляются по id (у строки "все записи" — null)
+        CatalogSnapshot catalog = catalogSnapshotService.get();
+        List<Map<String, Object>> leadTimes = withTotal(catalog, BookingHistograms.Metric.LEAD_TIME, groupBy);
+        Map<Object, Map<String, Object>> durations = new HashMap<>();
+        for (Map<String, Object> duration : withTotal(catalog, BookingHistograms.Metric.DURATION, groupBy)) {
+            durations.put(duration.get("id"), duration);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> leadTime : leadTimes) {
+            Map<String, Object> duration = durations.get(leadTime.get("id"));
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", leadTime.get("name"));
+            row.put("count", leadTime.get("count"));
+            row.put("leadTime", formatPercentiles(leadTime));
+            row.put("duration", formatPercentiles(duration));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> withTotal(CatalogSnapshot catalog, BookingHistograms.Metric metric,
+                                                TimeSeriesService.GroupBy groupBy) {
+        List<Map<String, Object>> rows = new ArrayList<>(getDistribution(catalog, metric, TimeSeriesService.GroupBy.NONE));
+        rows.addAll(getDistribution(catalog, metric, groupBy));
+        return rows;
+    }
+
+    private static Map<String, Object> distributionRow(Long id, String name, LogHistogram.Percentiles percentiles) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        row.put("count", percentiles.count());
+        row.put("p50", percentiles.p50());
+        row.put("p90", percentiles.p90());
+        row.put("p99", percentiles.p99());
+        row.put("max", percentiles.max());
+        return row;
+    }
+
+    private static String formatPercentiles(Map<String, Object> row) {
+        if (((Long) row.get("count")) == 0) {
+            return "—";
+        }
+        return formatMinutes((Long) row.get("p50")) + " / " + formatMinutes((Long) row.get("p90"))
+                + " / " + formatMinutes((Long) row.get("p99"));
+    }
+
+    /**
+     * Минуты в удобном виде: "45 мин", "3 ч 20 мин", "5 д 4 ч".
+     */
+    private static String formatMinutes(long minutes) {
+        if (minutes < 60) {
+            return minutes + " мин";
+        }
+        if (minutes < 24 * 60) {
+            long rest = minutes % 60;
+            return minutes / 60 + " ч" + (rest > 0 ? " " + rest + " мин" : "");
+        }
+        long days = minutes / (24 * 60);
+        long hours = minutes % (24 * 60) / 60;
+        return days + " д" + (hours > 0 ? " " + hours + " ч" : "");
+    }
+
+    /**
+     * Количество записей по статусам и выручка по завершенным.
+     */
+    private static void putCounts(Map<String, Object> data, AppointmentCounters.Counts counts) {
+        data.put("appointmentsCount", counts.total());
+        data.put("scheduledCount", counts.scheduled());
+        data.put("completedCount", counts.completed());
+        data.put("cancelledCount", counts.cancelled());
+        data.put("revenue", String.format("%.2f ₽", counts.revenue()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.example.barbershop.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Снимок всей статистики для страницы администратора (stale-while-revalidate).
+ * Пока снимок свежее окна актуальности, он отдается как есть. Устаревший снимок тоже отдается
+ * сразу, а пересчет запускается в фоне — не больше одного одновременно. Синхронно статистика
+ * считается только для самого первого запроса.
+ */
+@Service
+@Slf4j
+public class StatisticsSnapshotService {
+
+    private final StatisticsService statisticsService;
+    private final Duration freshness;
+
+    /**
+     * Один поток: пересчеты не идут параллельно и не занимают потоки запросов.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statistics-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<StatisticsSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public StatisticsSnapshotService(StatisticsService statisticsService,
+                                     @Value("${barbershop.stats.snapshot-freshness-ms:30000}") long freshnessMillis) {
+        this.statisticsService = statisticsService;
+        this.freshness = Duration.ofMillis(freshnessMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Текущий снимок статистики; устаревший запускает фоновый пересчет.
+     */
+    public StatisticsSnapshot get() {
+        StatisticsSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return computeInitial();
+        }
+        if (snapshot.age().compareTo(freshness) > 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::refresh);
+            } catch (RuntimeException e) {
+                refreshing.set(false);
+                log.warn("Не удалось запустить пересчет статистики", e);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Первый снимок: параллельные первые запросы ждут один расчет, а не считают каждый свой.
+     */
+    private synchronized StatisticsSnapshot computeInitial() {
+        StatisticsSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            snapshot = compute();
+            current.set(snapshot);
+        }
+        return snapshot;
+    }
+
+    private void refresh() {
+        try {
+            current.set(compute());
+        } catch (RuntimeException e) {
+            // Остается прежний снимок; следующий запрос попробует снова
+            log.warn("Ошибка пересчета статистики", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private StatisticsSnapshot compute() {
+        long started = System.nanoTime();
+        StatisticsSnapshot snapshot = new StatisticsSnapshot(
+                statisticsService.getGeneralStatistics(),
+                statisticsService.getWeeklyStatistics(),
+                statisticsService.getBarberStatistics(),
+                statisticsService.getServiceStatistics(),
+                statisticsService.getDistributionStatistics(),
+                LocalDateTime.now());
+        log.debug("Статистика пересчитана за {} мс", (System.nanoTime() - started) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * Статистика на момент {@code computedAt}.
+     */
+    public record StatisticsSnapshot(Map<String, Object> generalStats,
+                                     Map<String, Object> weeklyStats,
+                                     Map<String, Object> barberStats,
+                                     Map<String, Object> serviceStats,
+                                     Map<String, Object> distributionStats,
+                                     LocalDateTime computedAt) {
+
+        /**
+         * Возраст снимка.
+         */
+        public Duration age() {
+            return Duration.between(computedAt, LocalDateTime.now());
+        }
+    }
+}
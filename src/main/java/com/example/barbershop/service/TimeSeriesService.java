@@ -0,0 +1,214 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.TimeSeriesDto;
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.repository.DailyAppointmentStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Временные ряды показателей записей по дневной сводке (daily_appointment_stats).
+ * Дни сводки раскладываются по интервалам в памяти: годовой дневной ряд — это несколько
+ * тысяч строк сводки, а не сканирование таблицы записей. Данные отстают от записей
+ * на интервал пересчета сводки.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TimeSeriesService {
+
+    /**
+     * Максимальная длина периода в днях (около 10 лет).
+     */
+    private static final long MAX_PERIOD_DAYS = 3660;
+
+    private final DailyAppointmentStatsRepository dailyStatsRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    /**
+     * Размер интервала ряда.
+     */
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        /**
+         * Первый день интервала, содержащего дату.
+         */
+        LocalDate bucketStart(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * Номер интервала, содержащего дату, считая от интервала с началом first.
+         */
+        int bucketIndex(LocalDate first, LocalDate day) {
+            return switch (this) {
+                case DAY -> (int) ChronoUnit.DAYS.between(first, day);
+                case WEEK -> (int) ChronoUnit.WEEKS.between(first, bucketStart(day));
+                case MONTH -> (int) ChronoUnit.MONTHS.between(first, bucketStart(day));
+            };
+        }
+
+        LocalDate next(LocalDate bucketStart) {
+            return switch (this) {
+                case DAY -> bucketStart.plusDays(1);
+                case WEEK -> bucketStart.plusWeeks(1);
+                case MONTH -> bucketStart.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * Разбивка рядов.
+     */
+    public enum GroupBy {
+        NONE, BARBER, SERVICE
+    }
+
+    /**
+     * Построить ряды за дни приема [from, to] включительно.
+     *
+     * @throws IllegalArgumentException если период задан неверно или слишком длинный
+     */
+    public TimeSeriesDto getTimeSeries(LocalDate from, LocalDate to, Granularity granularity, GroupBy groupBy) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Нужно указать начало и конец периода");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания периода раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException("Период не должен превышать " + MAX_PERIOD_DAYS + " дней");
+        }
+
+        LocalDate toExclusive = to.plusDays(1);
+        LocalDate first = granularity.bucketStart(from);
+        int bucketCount = granularity.bucketIndex(first, to) + 1;
+
+        // Ряды в порядке каталога; ряды без записей тоже выводятся
+        Map<Long, Buckets> byKey = new LinkedHashMap<>();
+        CatalogSnapshot catalog = catalogSnapshotService.get();
+        List<Object[]> rows;
+        switch (groupBy) {
+            case BARBER -> {
+                catalog.getBarbers().forEach(barber -> byKey.put(barber.id(), new Buckets(bucketCount)));
+                rows = dailyStatsRepository.sumByDayBarberAndStatus(from, toExclusive);
+            }
+            case SERVICE -> {
+                catalog.getServices().forEach(service -> byKey.put(service.id(), new Buckets(bucketCount)));
+                rows = dailyStatsRepository.sumByDayServiceAndStatus(from, toExclusive);
+            }
+            default -> {
+                byKey.put(null, new Buckets(bucketCount));
+                rows = dailyStatsRepository.sumByDayAndStatus(from, toExclusive);
+            }
+        }
+
+        for (Object[] row : rows) {
+            LocalDate day = (LocalDate) row[0];
+            Long key = groupBy == GroupBy.NONE ? null : (Long) row[1];
+            int offset = groupBy == GroupBy.NONE ? 1 : 2;
+            Appointment.AppointmentStatus status = (Appointment.AppointmentStatus) row[offset];
+            long count = ((Number) row[offset + 1]).longValue();
+            double amount = ((Number) row[offset + 2]).doubleValue();
+
+            // Мастер или услуга могли быть удалены из каталога — их ряд все равно показываем
+            byKey.computeIfAbsent(key, k -> new Buckets(bucketCount))
+                    .add(granularity.bucketIndex(first, day), status, count, amount);
+        }
+
+        List<LocalDate> starts = new ArrayList<>(bucketCount);
+        for (LocalDate start = first; starts.size() < bucketCount; start = granularity.next(start)) {
+            starts.add(start);
+        }
+
+        List<TimeSeriesDto.Series> series = new ArrayList<>(byKey.size());
+        byKey.forEach((key, buckets) -> {
+            TimeSeriesDto.Series item = new TimeSeriesDto.Series();
+            item.setId(key);
+            item.setName(seriesName(catalog, groupBy, key));
+            item.setPoints(buckets.toPoints(starts));
+            series.add(item);
+        });
+
+        TimeSeriesDto dto = new TimeSeriesDto();
+        dto.setFrom(from);
+        dto.setTo(to);
+        dto.setGranularity(granularity.name().toLowerCase(Locale.ROOT));
+        dto.setGroupBy(groupBy.name().toLowerCase(Locale.ROOT));
+        dto.setSeries(series);
+        return dto;
+    }
+
+    private static String seriesName(CatalogSnapshot catalog, GroupBy groupBy, Long key) {
+        return switch (groupBy) {
+            case BARBER -> {
+                CatalogSnapshot.BarberEntry barber = catalog.findBarber(key);
+                yield barber != null ? barber.fullName() : "Мастер #" + key;
+            }
+            case SERVICE -> {
+                CatalogSnapshot.ServiceEntry service = catalog.findService(key);
+                yield service != null ? service.name() : "Услуга #" + key;
+            }
+            case NONE -> "Все записи";
+        };
+    }
+
+    /**
+     * Показатели одного ряда по интервалам.
+     */
+    private static final class Buckets {
+
+        final long[] bookings;
+        final long[] completions;
+        final long[] cancellations;
+        final double[] revenue;
+
+        Buckets(int size) {
+            bookings = new long[size];
+            completions = new long[size];
+            cancellations = new long[size];
+            revenue = new double[size];
+        }
+
+        void add(int index, Appointment.AppointmentStatus status, long count, double amount) {
+            bookings[index] += count;
+            if (status == Appointment.AppointmentStatus.COMPLETED) {
+                completions[index] += count;
+                revenue[index] += amount;
+            } else if (status == Appointment.AppointmentStatus.CANCELLED) {
+                cancellations[index] += count;
+            }
+        }
+
+        List<TimeSeriesDto.Point> toPoints(List<LocalDate> starts) {
+            List<TimeSeriesDto.Point> points = new ArrayList<>(starts.size());
+            for (int i = 0; i < starts.size(); i++) {
+                TimeSeriesDto.Point point = new TimeSeriesDto.Point();
+                point.setPeriodStart(starts.get(i));
+                point.setBookings(bookings[i]);
+                point.setCompletions(completions[i]);
+                point.setCancellations(cancellations[i]);
+                // Округление до копеек убирает хвосты суммирования double
+                point.setRevenue(Math.round(revenue[i] * 100) / 100.0);
+                points.add(point);
+            }
+            return points;
+        }
+    }
+}
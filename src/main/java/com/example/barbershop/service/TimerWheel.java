@@ -0,0 +1,92 @@
+package com.example.barbershop.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Колесо таймеров (hashed timing wheel) для истечения большого числа объектов.
+ * Вместо отдельной задачи на каждый объект один поток раз в тик обходит одну ячейку колеса;
+ * постановка таймера — добавление в очередь за O(1). Отмена ленивая: обработчик сам проверяет,
+ * актуален ли объект, поэтому срабатывание может опоздать не больше чем на один тик.
+ */
+@Slf4j
+final class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Timeout<T>>[] buckets;
+    private final Consumer<T> onExpire;
+    private final long startMillis = System.currentTimeMillis();
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * Последний обработанный тик. Пишет только поток колеса.
+     */
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(String name, long tickMillis, int wheelSize, Consumer<T> onExpire) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Размер колеса должен быть степенью двойки, тик — положительным");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.onExpire = onExpire;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Поставить таймер на момент deadline.
+     */
+    void schedule(T item, Instant deadline) {
+        long deadlineTick = Math.floorDiv(deadline.toEpochMilli() - startMillis + tickMillis - 1, tickMillis);
+        // Ячейку следующего тика поток колеса может обходить прямо сейчас — ставим не раньше, чем через одну
+        deadlineTick = Math.max(deadlineTick, currentTick + 2);
+        buckets[(int) (deadlineTick & mask)].add(new Timeout<>(item, deadlineTick));
+    }
+
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    private void advance() {
+        long target = (System.currentTimeMillis() - startMillis) / tickMillis;
+        while (currentTick < target) {
+            long tick = currentTick + 1;
+            Iterator<Timeout<T>> iterator = buckets[(int) (tick & mask)].iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.deadlineTick() > tick) {
+                    continue; // сработает на одном из следующих оборотов
+                }
+                iterator.remove();
+                try {
+                    onExpire.accept(timeout.item());
+                } catch (RuntimeException e) {
+                    log.error("Ошибка обработчика таймера", e);
+                }
+            }
+            currentTick = tick;
+        }
+    }
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+}
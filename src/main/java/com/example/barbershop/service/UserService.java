@@ -17,6 +17,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatsService userStatsService;
 
     /**
      * Найти пользователя по ID.
@@ -60,7 +61,9 @@ public class UserService {
             user.setRole(User.Role.CLIENT);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatsService.invalidateOnCommit();
+        return saved;
     }
 
     /**
@@ -99,6 +102,7 @@ public class UserService {
             userRepository.save(client);
             System.out.println("Создан CLIENT: " + client.getEmail());
 
+            userStatsService.invalidateOnCommit();
             System.out.println("=== ТЕСТОВЫЕ ПОЛЬЗОВАТЕЛИ СОЗДАНЫ ===");
         }
     }
@@ -0,0 +1,81 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.User;
+import com.example.barbershop.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Количество пользователей по ролям для панели и статистики администратора.
+ * Считается одним GROUP BY запросом и кэшируется до следующей регистрации.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    private final UserRepository userRepository;
+
+    /**
+     * Поколение кэша вместе со значением. Сброс заменяет объект, поэтому compareAndSet
+     * результата, прочитанного до коммита регистрации, не пройдет.
+     */
+    private final AtomicReference<CacheState> state = new AtomicReference<>(new CacheState(0, null));
+
+    /**
+     * Количество пользователей по ролям.
+     */
+    public UserStats getUserStats() {
+        CacheState observed = state.get();
+        if (observed.stats() != null) {
+            return observed.stats();
+        }
+
+        Map<User.Role, Long> byRole = new EnumMap<>(User.Role.class);
+        for (Object[] row : userRepository.countGroupedByRole()) {
+            byRole.put((User.Role) row[0], (Long) row[1]);
+        }
+        long clients = byRole.getOrDefault(User.Role.CLIENT, 0L);
+        long barbers = byRole.getOrDefault(User.Role.BARBER, 0L);
+        long admins = byRole.getOrDefault(User.Role.ADMIN, 0L);
+        long total = byRole.values().stream().mapToLong(Long::longValue).sum();
+        UserStats stats = new UserStats(total, clients, barbers, admins);
+
+        state.compareAndSet(observed, new CacheState(observed.generation(), stats));
+        return stats;
+    }
+
+    /**
+     * Сбросить кэш после коммита текущей транзакции (добавлен пользователь).
+     */
+    public void invalidateOnCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        state.updateAndGet(current -> new CacheState(current.generation() + 1, null));
+    }
+
+    private record CacheState(long generation, UserStats stats) {
+    }
+
+    /**
+     * Количество пользователей: всего и по ролям.
+     */
+    public record UserStats(long total, long clients, long barbers, long admins) {
+    }
+}
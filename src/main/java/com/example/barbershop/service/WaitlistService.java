@@ -0,0 +1,344 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.WaitlistEntryDto;
+import com.example.barbershop.dto.WaitlistRequest;
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.entity.User;
+import com.example.barbershop.entity.WaitlistEntry;
+import com.example.barbershop.event.AppointmentCancelledEvent;
+import com.example.barbershop.repository.BarberRepository;
+import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.repository.ServiceRepository;
+import com.example.barbershop.repository.UserRepository;
+import com.example.barbershop.repository.WaitlistEntryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Лист ожидания: автоматически занимает время, освободившееся после отмены записи.
+ * Активные заявки держатся в памяти с индексом (мастер, день) и (услуга, день),
+ * поэтому подбор кандидатов при отмене — несколько обращений к хэш-таблицам.
+ * Бронирование выполняется асинхронно, после коммита отмены и вне потока запроса.
+ */
+@Service
+@Transactional(readOnly = true)
+@Slf4j
+public class WaitlistService {
+
+    private static final int MAX_WINDOW_DAYS = 14;
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final UserRepository userRepository;
+    private final ServiceRepository serviceRepository;
+    private final BarberRepository barberRepository;
+    private final BarberServiceRepository barberServiceRepository;
+    private final AppointmentService appointmentService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Один поток: отмены обрабатываются по очереди, заявки не конкурируют между собой.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, Candidate> candidates = new ConcurrentHashMap<>();
+    private final Map<DayKey, Set<Long>> byBarberDay = new ConcurrentHashMap<>();
+    private final Map<DayKey, Set<Long>> byServiceDay = new ConcurrentHashMap<>();
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository,
+                           UserRepository userRepository,
+                           ServiceRepository serviceRepository,
+                           BarberRepository barberRepository,
+                           BarberServiceRepository barberServiceRepository,
+                           AppointmentService appointmentService,
+                           TransactionTemplate transactionTemplate) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.userRepository = userRepository;
+        this.serviceRepository = serviceRepository;
+        this.barberRepository = barberRepository;
+        this.barberServiceRepository = barberServiceRepository;
+        this.appointmentService = appointmentService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Загрузить активные заявки в память при старте приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveEntries() {
+        List<Object[]> rows = waitlistEntryRepository.findActiveCandidates(LocalDateTime.now());
+        for (Object[] row : rows) {
+            index(new Candidate((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3],
+                    (LocalDateTime) row[4], (LocalDateTime) row[5], (LocalDateTime) row[6]));
+        }
+        log.info("Лист ожидания: загружено {} активных заявок", rows.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Поставить клиента в лист ожидания.
+     */
+    @Transactional
+    public WaitlistEntryDto register(WaitlistRequest request) {
+        if (request.getWindowStart() == null || request.getWindowEnd() == null
+                || !request.getWindowEnd().isAfter(request.getWindowStart())) {
+            throw new IllegalArgumentException("Некорректное окно ожидания");
+        }
+        if (!request.getWindowEnd().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Окно ожидания уже прошло");
+        }
+        if (ChronoUnit.DAYS.between(request.getWindowStart(), request.getWindowEnd()) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Окно ожидания не может превышать " + MAX_WINDOW_DAYS + " дней");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setClient(userRepository.findById(request.getClientId())
+                .orElseThrow(() -> new IllegalArgumentException("Клиент не найден")));
+        entry.setService(serviceRepository.findById(request.getServiceId())
+                .orElseThrow(() -> new IllegalArgumentException("Услуга не найдена")));
+        if (request.getBarberId() != null) {
+            entry.setBarber(barberRepository.findById(request.getBarberId())
+                    .orElseThrow(() -> new IllegalArgumentException("Парикмахер не найден")));
+        }
+        entry.setWindowStart(request.getWindowStart());
+        entry.setWindowEnd(request.getWindowEnd());
+        entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+        entry.setCreatedAt(LocalDateTime.now());
+
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+        Candidate candidate = new Candidate(saved.getId(), request.getClientId(), request.getServiceId(),
+                request.getBarberId(), saved.getWindowStart(), saved.getWindowEnd(), saved.getCreatedAt());
+        afterCommit(() -> index(candidate));
+
+        log.info("Клиент {} поставлен в лист ожидания: услуга={}, мастер={}, окно={} - {}",
+                request.getClientId(), request.getServiceId(), request.getBarberId(),
+                saved.getWindowStart(), saved.getWindowEnd());
+        return convertToDto(saved);
+    }
+
+    /**
+     * Отменить заявку клиента.
+     */
+    @Transactional
+    public WaitlistEntryDto cancel(Long entryId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Заявка не найдена"));
+        if (entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING) {
+            entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+            afterCommit(() -> unindex(entryId));
+        }
+        return convertToDto(waitlistEntryRepository.save(entry));
+    }
+
+    /**
+     * Найти заявки клиента.
+     */
+    public List<WaitlistEntryDto> getClientEntries(Long clientId) {
+        return waitlistEntryRepository.findByClientIdOrderByCreatedAtDesc(clientId).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Обработать отмену записи: подбор кандидатов и бронирование выполняются в фоновом потоке
+     * после коммита отмены. Сам обработчик только ставит задачу в очередь и транзакции не требует;
+     * NOT_SUPPORTED перекрывает readOnly-транзакцию уровня класса, недопустимую для обработчика после коммита.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onAppointmentCancelled(AppointmentCancelledEvent event) {
+        if (!candidates.isEmpty()) {
+            executor.execute(() -> offerFreedSlot(event));
+        }
+    }
+
+    /**
+     * Забронировать освободившееся время для первых подходящих кандидатов.
+     * Если интервал длиннее услуги, оставшееся время предлагается следующим в очереди.
+     */
+    private void offerFreedSlot(AppointmentCancelledEvent event) {
+        Map<Long, BarberService> offered = barberServiceRepository.findByBarberId(event.barberId()).stream()
+                .collect(Collectors.toMap(bs -> bs.getService().getId(), Function.identity()));
+
+        LocalDateTime cursor = event.start();
+        for (Candidate candidate : findCandidates(event, offered.keySet())) {
+            if (!cursor.isBefore(event.end())) {
+                return;
+            }
+            BarberService barberService = offered.get(candidate.serviceId());
+            LocalDateTime start = candidate.windowStart().isAfter(cursor) ? candidate.windowStart() : cursor;
+            LocalDateTime end = start.plusMinutes(barberService.getActualDurationMinutes());
+            if (end.isAfter(candidate.windowEnd()) || end.isAfter(event.end())) {
+                continue;
+            }
+
+            try {
+                Appointment appointment = transactionTemplate.execute(status -> book(candidate, barberService, start));
+                unindex(candidate.entryId());
+                cursor = end;
+                log.info("Лист ожидания: заявка {} получила запись {} на {}",
+                        candidate.entryId(), appointment.getId(), start);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                log.debug("Лист ожидания: заявка {} не забронирована: {}", candidate.entryId(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Лист ожидания: ошибка бронирования заявки {}", candidate.entryId(), e);
+            }
+        }
+    }
+
+    /**
+     * Кандидаты на освободившийся интервал в порядке очереди (по времени постановки):
+     * заявки к этому мастеру и заявки "любой мастер" на услуги, которые он оказывает.
+     */
+    private List<Candidate> findCandidates(AppointmentCancelledEvent event, Set<Long> offeredServiceIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> ids = new HashSet<>();
+        for (LocalDate day = event.start().toLocalDate();
+             !day.isAfter(event.end().toLocalDate()); day = day.plusDays(1)) {
+            ids.addAll(byBarberDay.getOrDefault(new DayKey(event.barberId(), day), Set.of()));
+            for (Long serviceId : offeredServiceIds) {
+                ids.addAll(byServiceDay.getOrDefault(new DayKey(serviceId, day), Set.of()));
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>();
+        for (Long entryId : ids) {
+            Candidate candidate = candidates.get(entryId);
+            if (candidate == null) {
+                continue;
+            }
+            if (!candidate.windowEnd().isAfter(now)) {
+                unindex(entryId);
+                continue;
+            }
+            if (offeredServiceIds.contains(candidate.serviceId())
+                    && candidate.windowStart().isBefore(event.end())
+                    && candidate.windowEnd().isAfter(event.start())) {
+                result.add(candidate);
+            }
+        }
+        result.sort(Comparator.comparing(Candidate::createdAt).thenComparing(Candidate::entryId));
+        return result;
+    }
+
+    private Appointment book(Candidate candidate, BarberService barberService, LocalDateTime start) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(candidate.entryId())
+                .filter(e -> e.getStatus() == WaitlistEntry.WaitlistStatus.WAITING)
+                .orElseThrow(() -> new IllegalStateException("Заявка уже неактивна"));
+        User client = userRepository.findById(candidate.clientId())
+                .orElseThrow(() -> new IllegalStateException("Клиент не найден"));
+
+        // Клиент мог удерживать другое время на сайте — автоматическая запись его не трогает
+        Appointment appointment = appointmentService.createAppointment(client, barberService.getId(), start, true);
+        entry.setStatus(WaitlistEntry.WaitlistStatus.BOOKED);
+        entry.setAppointment(appointment);
+        waitlistEntryRepository.save(entry);
+        return appointment;
+    }
+
+    private void index(Candidate candidate) {
+        candidates.put(candidate.entryId(), candidate);
+        for (DayKey key : dayKeys(candidate)) {
+            indexFor(candidate).computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(candidate.entryId());
+        }
+    }
+
+    private void unindex(Long entryId) {
+        Candidate candidate = candidates.remove(entryId);
+        if (candidate == null) {
+            return;
+        }
+        for (DayKey key : dayKeys(candidate)) {
+            indexFor(candidate).computeIfPresent(key, (k, ids) -> {
+                ids.remove(entryId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private Map<DayKey, Set<Long>> indexFor(Candidate candidate) {
+        return candidate.barberId() != null ? byBarberDay : byServiceDay;
+    }
+
+    private static List<DayKey> dayKeys(Candidate candidate) {
+        Long id = candidate.barberId() != null ? candidate.barberId() : candidate.serviceId();
+        List<DayKey> keys = new ArrayList<>();
+        for (LocalDate day = candidate.windowStart().toLocalDate();
+             !day.isAfter(candidate.windowEnd().toLocalDate()); day = day.plusDays(1)) {
+            keys.add(new DayKey(id, day));
+        }
+        return keys;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private WaitlistEntryDto convertToDto(WaitlistEntry entry) {
+        WaitlistEntryDto dto = new WaitlistEntryDto();
+        dto.setId(entry.getId());
+        dto.setClientId(entry.getClient().getId());
+        dto.setServiceId(entry.getService().getId());
+        dto.setBarberId(entry.getBarber() != null ? entry.getBarber().getId() : null);
+        dto.setWindowStart(entry.getWindowStart());
+        dto.setWindowEnd(entry.getWindowEnd());
+        dto.setStatus(entry.getStatus().name());
+        dto.setAppointmentId(entry.getAppointment() != null ? entry.getAppointment().getId() : null);
+        dto.setCreatedAt(entry.getCreatedAt());
+        return dto;
+    }
+
+    /**
+     * Активная заявка в памяти.
+     */
+    private record Candidate(Long entryId, Long clientId, Long serviceId, Long barberId,
+                             LocalDateTime windowStart, LocalDateTime windowEnd, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Ключ индекса: мастер (или услуга) и день.
+     */
+    private record DayKey(Long id, LocalDate day) {
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.dto.WorkingDayDto;
+import com.example.barbershop.entity.Barber;
+import com.example.barbershop.entity.BarberBreak;
+import com.example.barbershop.entity.BarberTimeOff;
+import com.example.barbershop.entity.BarberWorkingHours;
+import com.example.barbershop.event.BarberScheduleChangedEvent;
+import com.example.barbershop.repository.BarberBreakRepository;
+import com.example.barbershop.repository.BarberRepository;
+import com.example.barbershop.repository.BarberTimeOffRepository;
+import com.example.barbershop.repository.BarberWorkingHoursRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рабочее время мастеров: недельный шаблон часов, перерывы и отсутствия.
+ * Для каждого дня заранее вычисляется список открытых интервалов
+ * (рабочие часы минус перерывы и отсутствия); списки кэшируются и сбрасываются
+ * только при изменении расписания мастера, а не на каждый запрос.
+ * Мастер без недельного шаблона работает по часам по умолчанию, если они заданы
+ * (barbershop.schedule.default-start/default-end), иначе — без ограничений по времени.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class WorkingScheduleService {
+
+    private static final Locale RUSSIAN = Locale.forLanguageTag("ru");
+
+    /**
+     * Конец рабочего дня "до полуночи": LocalTime не представляет 24:00, а колонка TIME хранит секунды.
+     */
+    static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
+
+    private final BarberWorkingHoursRepository workingHoursRepository;
+    private final BarberBreakRepository breakRepository;
+    private final BarberTimeOffRepository timeOffRepository;
+    private final BarberRepository barberRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${barbershop.schedule.default-start:}")
+    private String defaultStartValue;
+
+    @Value("${barbershop.schedule.default-end:}")
+    private String defaultEndValue;
+
+    @Value("${barbershop.schedule.max-cached-days:10000}")
+    private int maxCachedDays;
+
+    /**
+     * Часы мастера без шаблона: заданные по умолчанию или весь день.
+     */
+    private LocalTime defaultStart;
+    private LocalTime defaultEnd;
+
+    private final Map<Long, WeeklyTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<DayKey, List<BarberScheduleIndex.Interval>> openByDay = new ConcurrentHashMap<>();
+
+    /**
+     * Счетчик изменений расписаний: не дает закэшировать данные, прочитанные до коммита изменения.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        boolean startSet = !defaultStartValue.isBlank();
+        boolean endSet = !defaultEndValue.isBlank();
+        if (startSet != endSet) {
+            throw new IllegalStateException("barbershop.schedule.default-start и default-end задаются вместе");
+        }
+        if (!startSet) {
+            defaultStart = LocalTime.MIDNIGHT;
+            defaultEnd = END_OF_DAY;
+            log.info("Часы по умолчанию не заданы: мастера без недельного шаблона работают без ограничений");
+            return;
+        }
+        defaultStart = LocalTime.parse(defaultStartValue);
+        defaultEnd = LocalTime.parse(defaultEndValue);
+        if (!defaultEnd.isAfter(defaultStart)) {
+            throw new IllegalStateException("barbershop.schedule.default-end должен быть позже default-start");
+        }
+    }
+
+    // ========== ЧТЕНИЕ ==========
+
+    /**
+     * Открытые интервалы мастера в указанный день, в порядке начала.
+     */
+    public List<BarberScheduleIndex.Interval> getOpenIntervals(Long barberId, LocalDate date) {
+        DayKey key = new DayKey(barberId, date);
+        List<BarberScheduleIndex.Interval> cached = openByDay.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observedGeneration = generation.get();
+        List<BarberScheduleIndex.Interval> built = template(barberId).openIntervals(date);
+        if (generation.get() == observedGeneration) {
+            if (openByDay.size() >= maxCachedDays) {
+                openByDay.clear();
+            }
+            openByDay.put(key, built);
+            if (generation.get() != observedGeneration) {
+                openByDay.remove(key, built);
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Целиком ли интервал [start, end) попадает в рабочее время мастера.
+     */
+    public boolean isWithinWorkingHours(Long barberId, LocalDateTime start, LocalDateTime end) {
+        for (BarberScheduleIndex.Interval open : getOpenIntervals(barberId, start.toLocalDate())) {
+            if (!start.isBefore(open.start()) && !end.isAfter(open.end())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Нерабочие интервалы мастера (дополнение открытых интервалов), пересекающие период [from, to).
+     */
+    public List<BarberScheduleIndex.Interval> getClosedIntervals(Long barberId, LocalDateTime from, LocalDateTime to) {
+        List<BarberScheduleIndex.Interval> result = new ArrayList<>();
+        LocalDate lastDay = to.minusNanos(1).toLocalDate();
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDateTime cursor = day.atStartOfDay();
+            for (BarberScheduleIndex.Interval open : getOpenIntervals(barberId, day)) {
+                addClipped(result, cursor, open.start(), from, to);
+                cursor = open.end();
+            }
+            addClipped(result, cursor, day.plusDays(1).atStartOfDay(), from, to);
+        }
+        return result;
+    }
+
+    /**
+     * Недельный шаблон мастера для отображения (понедельник — воскресенье).
+     */
+    public List<WorkingDayDto> getWeeklySchedule(Long barberId) {
+        WeeklyTemplate template = template(barberId);
+        List<BarberBreak> breaks = breakRepository.findByBarberIdOrderByDayOfWeekAscStartTimeAsc(barberId);
+        List<WorkingDayDto> days = new ArrayList<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            WorkingDayDto day = new WorkingDayDto();
+            day.setDayOfWeek(dayOfWeek);
+            day.setDayName(capitalize(dayOfWeek.getDisplayName(TextStyle.FULL_STANDALONE, RUSSIAN)));
+            LocalTime[] hours = template.hoursFor(dayOfWeek);
+            if (hours != null) {
+                day.setStartTime(hours[0]);
+                day.setEndTime(hours[1]);
+            }
+            day.setBreaks(breaks.stream()
+                    .filter(b -> b.getDayOfWeek() == dayOfWeek)
+                    .map(b -> {
+                        WorkingDayDto.BreakDto dto = new WorkingDayDto.BreakDto();
+                        dto.setId(b.getId());
+                        dto.setStartTime(b.getStartTime());
+                        dto.setEndTime(b.getEndTime());
+                        return dto;
+                    })
+                    .toList());
+            days.add(day);
+        }
+        return days;
+    }
+
+    /**
+     * Предстоящие и текущие отсутствия мастера.
+     */
+    public List<BarberTimeOff> getUpcomingTimeOff(Long barberId) {
+        return timeOffRepository.findByBarberIdAndEndDateTimeAfterOrderByStartDateTime(barberId, LocalDateTime.now());
+    }
+
+    // ========== ИЗМЕНЕНИЕ ==========
+
+    /**
+     * Задать рабочие часы на день недели. startTime == null делает день выходным.
+     * Первое изменение заменяет часы по умолчанию явным шаблоном на всю неделю.
+     */
+    @Transactional
+    public void updateWorkingDay(Long barberId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        Barber barber = findBarber(barberId);
+        if (startTime != null && (endTime == null || !endTime.isAfter(startTime))) {
+            throw new IllegalArgumentException("Конец рабочего дня должен быть позже начала");
+        }
+
+        if (workingHoursRepository.findByBarberId(barberId).isEmpty()) {
+            // Фиксируем часы по умолчанию для остальных дней, иначе они станут выходными
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (day != dayOfWeek) {
+                    workingHoursRepository.save(newWorkingHours(barber, day, defaultStart, defaultEnd));
+                }
+            }
+        }
+
+        BarberWorkingHours hours = workingHoursRepository.findByBarberIdAndDayOfWeek(barberId, dayOfWeek).orElse(null);
+        if (startTime == null) {
+            if (hours != null) {
+                workingHoursRepository.delete(hours);
+            }
+        } else if (hours == null) {
+            workingHoursRepository.save(newWorkingHours(barber, dayOfWeek, startTime, endTime));
+        } else {
+            hours.setStartTime(startTime);
+            hours.setEndTime(endTime);
+            workingHoursRepository.save(hours);
+        }
+        invalidateOnCommit(barberId);
+        log.info("Рабочие часы мастера {} на {}: {}", barberId, dayOfWeek,
+                startTime == null ? "выходной" : startTime + " - " + endTime);
+    }
+
+    /**
+     * Добавить еженедельный перерыв.
+     */
+    @Transactional
+    public BarberBreak addBreak(Long barberId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        if (startTime == null || endTime == null || !endTime.isAfter(startTime)) {
+            throw new IllegalArgumentException("Конец перерыва должен быть позже начала");
+        }
+        BarberBreak barberBreak = new BarberBreak();
+        barberBreak.setBarber(findBarber(barberId));
+        barberBreak.setDayOfWeek(dayOfWeek);
+        barberBreak.setStartTime(startTime);
+        barberBreak.setEndTime(endTime);
+        BarberBreak saved = breakRepository.save(barberBreak);
+        invalidateOnCommit(barberId);
+        return saved;
+    }
+
+    /**
+     * Удалить перерыв мастера.
+     */
+    @Transactional
+    public void removeBreak(Long barberId, Long breakId) {
+        BarberBreak barberBreak = breakRepository.findById(breakId)
+                .filter(b -> b.getBarber().getId().equals(barberId))
+                .orElseThrow(() -> new IllegalArgumentException("Перерыв не найден"));
+        breakRepository.delete(barberBreak);
+        invalidateOnCommit(barberId);
+    }
+
+    /**
+     * Добавить отсутствие мастера. Уже созданные записи на этот период не отменяются.
+     */
+    @Transactional
+    public BarberTimeOff addTimeOff(Long barberId, LocalDateTime start, LocalDateTime end, String reason) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("Конец отсутствия должен быть позже начала");
+        }
+        BarberTimeOff timeOff = new BarberTimeOff();
+        timeOff.setBarber(findBarber(barberId));
+        timeOff.setStartDateTime(start);
+        timeOff.setEndDateTime(end);
+        timeOff.setReason(reason);
+        BarberTimeOff saved = timeOffRepository.save(timeOff);
+        invalidateOnCommit(barberId);
+        return saved;
+    }
+
+    /**
+     * Удалить отсутствие мастера.
+     */
+    @Transactional
+    public void removeTimeOff(Long barberId, Long timeOffId) {
+        BarberTimeOff timeOff = timeOffRepository.findById(timeOffId)
+                .filter(t -> t.getBarber().getId().equals(barberId))
+                .orElseThrow(() -> new IllegalArgumentException("Отсутствие не найдено"));
+        timeOffRepository.delete(timeOff);
+        invalidateOnCommit(barberId);
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private Barber findBarber(Long barberId) {
+        return barberRepository.findById(barberId)
+                .orElseThrow(() -> new IllegalArgumentException("Парикмахер не найден"));
+    }
+
+    private static BarberWorkingHours newWorkingHours(Barber barber, DayOfWeek day, LocalTime start, LocalTime end) {
+        BarberWorkingHours hours = new BarberWorkingHours();
+        hours.setBarber(barber);
+        hours.setDayOfWeek(day);
+        hours.setStartTime(start);
+        hours.setEndTime(end);
+        return hours;
+    }
+
+    private WeeklyTemplate template(Long barberId) {
+        LocalDate today = LocalDate.now();
+        WeeklyTemplate cached = templates.get(barberId);
+        // Шаблон, построенный в прошлые дни, перечитывается: иначе граница загрузки отсутствий
+        // остается на дне построения и список прошедших отсутствий только растет
+        if (cached != null && cached.builtOn().equals(today)) {
+            return cached;
+        }
+
+        long observedGeneration = generation.get();
+        Map<DayOfWeek, LocalTime[]> hours = new EnumMap<>(DayOfWeek.class);
+        for (BarberWorkingHours row : workingHoursRepository.findByBarberId(barberId)) {
+            hours.put(row.getDayOfWeek(), new LocalTime[]{row.getStartTime(), row.getEndTime()});
+        }
+        Map<DayOfWeek, List<LocalTime[]>> breaks = new EnumMap<>(DayOfWeek.class);
+        for (BarberBreak row : breakRepository.findByBarberIdOrderByDayOfWeekAscStartTimeAsc(barberId)) {
+            breaks.computeIfAbsent(row.getDayOfWeek(), d -> new ArrayList<>())
+                    .add(new LocalTime[]{row.getStartTime(), row.getEndTime()});
+        }
+        // Отсутствия в прошлом на доступность не влияют — загружаем начиная со вчерашнего дня
+        List<BarberScheduleIndex.Interval> timeOff = timeOffRepository
+                .findByBarberIdAndEndDateTimeAfterOrderByStartDateTime(barberId,
+                        today.minusDays(1).atStartOfDay()).stream()
+                .map(t -> new BarberScheduleIndex.Interval(null, t.getStartDateTime(), t.getEndDateTime()))
+                .toList();
+
+        WeeklyTemplate built = new WeeklyTemplate(hours.isEmpty() ? null : hours, breaks, timeOff,
+                defaultStart, defaultEnd, today);
+        if (generation.get() == observedGeneration) {
+            templates.put(barberId, built);
+            if (generation.get() != observedGeneration) {
+                templates.remove(barberId, built);
+            }
+        }
+        return built;
+    }
+
+    private void invalidateOnCommit(Long barberId) {
+        Runnable invalidate = () -> {
+            generation.incrementAndGet();
+            templates.remove(barberId);
+            openByDay.keySet().removeIf(key -> key.barberId().equals(barberId));
+            eventPublisher.publishEvent(BarberScheduleChangedEvent.wholeSchedule(barberId));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        } else {
+            invalidate.run();
+        }
+    }
+
+    private static void addClipped(List<BarberScheduleIndex.Interval> result, LocalDateTime start, LocalDateTime end,
+                                   LocalDateTime from, LocalDateTime to) {
+        LocalDateTime clippedStart = start.isBefore(from) ? from : start;
+        LocalDateTime clippedEnd = end.isAfter(to) ? to : end;
+        if (clippedStart.isBefore(clippedEnd)) {
+            result.add(new BarberScheduleIndex.Interval(null, clippedStart, clippedEnd));
+        }
+    }
+
+    private static String capitalize(String value) {
+        return value.isEmpty() ? value : Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private record DayKey(Long barberId, LocalDate date) {
+    }
+
+    /**
+     * Шаблон рабочего времени мастера. hours == null — мастер работает по часам по умолчанию каждый день.
+     * Отсутствия загружены начиная со дня перед builtOn.
+     */
+    private record WeeklyTemplate(Map<DayOfWeek, LocalTime[]> hours,
+                                  Map<DayOfWeek, List<LocalTime[]>> breaks,
+                                  List<BarberScheduleIndex.Interval> timeOff,
+                                  LocalTime defaultStart, LocalTime defaultEnd,
+                                  LocalDate builtOn) {
+
+        LocalTime[] hoursFor(DayOfWeek dayOfWeek) {
+            return hours == null ? new LocalTime[]{defaultStart, defaultEnd} : hours.get(dayOfWeek);
+        }
+
+        /**
+         * Рабочие часы дня минус перерывы и отсутствия.
+         */
+        List<BarberScheduleIndex.Interval> openIntervals(LocalDate date) {
+            LocalTime[] dayHours = hoursFor(date.getDayOfWeek());
+            if (dayHours == null) {
+                return List.of();
+            }
+
+            List<BarberScheduleIndex.Interval> open = new ArrayList<>();
+            LocalDateTime dayEnd = END_OF_DAY.equals(dayHours[1])
+                    ? date.plusDays(1).atStartOfDay() : date.atTime(dayHours[1]);
+            open.add(new BarberScheduleIndex.Interval(null, date.atTime(dayHours[0]), dayEnd));
+            for (LocalTime[] pause : breaks.getOrDefault(date.getDayOfWeek(), List.of())) {
+                open = subtract(open, date.atTime(pause[0]), date.atTime(pause[1]));
+            }
+            for (BarberScheduleIndex.Interval absence : timeOff) {
+                open = subtract(open, absence.start(), absence.end());
+            }
+            return List.copyOf(open);
+        }
+
+        private static List<BarberScheduleIndex.Interval> subtract(List<BarberScheduleIndex.Interval> open,
+                                                                   LocalDateTime start, LocalDateTime end) {
+            List<BarberScheduleIndex.Interval> result = new ArrayList<>(open.size() + 1);
+            for (BarberScheduleIndex.Interval interval : open) {
+                if (!interval.overlaps(start, end)) {
+                    result.add(interval);
+                    continue;
+                }
+                if (interval.start().isBefore(start)) {
+                    result.add(new BarberScheduleIndex.Interval(null, interval.start(), start));
+                }
+                if (interval.end().isAfter(end)) {
+                    result.add(new BarberScheduleIndex.Interval(null, end, interval.end()));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Перевод существующей базы на схему с колонками barber_id и appointment_end_time.
+-- При ddl-auto=update Hibernate не может добавить NOT NULL колонку в непустую таблицу:
+-- колонки добавляются здесь без ограничения, заполняются из barber_services, затем становятся NOT NULL.
+-- Выполняется перед созданием appointments_no_overlap. Скрипт идемпотентен.
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS barber_id bigint;
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS appointment_end_time timestamp(6);
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS updated_at timestamp(6);
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS price float(53);
+
+UPDATE appointments a
+SET barber_id = bs.barber_id
+FROM barber_services bs
+WHERE bs.id = a.barber_service_id
+  AND a.barber_id IS NULL;
+
+UPDATE appointments a
+SET appointment_end_time = a.appointment_date_time + bs.actual_duration_minutes * INTERVAL '1 minute'
+FROM barber_services bs
+WHERE bs.id = a.barber_service_id
+  AND a.appointment_end_time IS NULL;
+
+-- Для уже существующих записей цена на момент записи неизвестна — берется текущая цена услуги
+UPDATE appointments a
+SET price = bs.actual_price
+FROM barber_services bs
+WHERE bs.id = a.barber_service_id
+  AND a.price IS NULL;
+
+ALTER TABLE appointments ALTER COLUMN barber_id SET NOT NULL;
+ALTER TABLE appointments ALTER COLUMN appointment_end_time SET NOT NULL;
+ALTER TABLE appointments ALTER COLUMN price SET NOT NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_appointments_barber') THEN
+        ALTER TABLE appointments
+            ADD CONSTRAINT fk_appointments_barber FOREIGN KEY (barber_id) REFERENCES barbers (id);
+    END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_appointments_barber_time
+    ON appointments (barber_id, appointment_date_time, appointment_end_time);
+CREATE INDEX IF NOT EXISTS idx_appointments_updated_at ON appointments (updated_at);
+
+-- Идентификаторы записей раньше выдавала IDENTITY-колонка, теперь — последовательность appointments_seq
+-- (Hibernate берет из нее блоки по 50). Последовательность сдвигается за уже выданные идентификаторы.
+CREATE SEQUENCE IF NOT EXISTS appointments_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('appointments_seq', t.max_id)
+FROM (SELECT max(id) AS max_id FROM appointments) t
+WHERE t.max_id > (SELECT last_value FROM appointments_seq);
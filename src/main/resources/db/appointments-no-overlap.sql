@@ -0,0 +1,21 @@
+-- Запрет пересекающихся активных записей одного мастера на уровне базы.
+-- Работает и при нескольких экземплярах приложения. Скрипт идемпотентен: существующее ограничение
+-- не пересоздается, поэтому при запуске таблица не блокируется и индекс не перестраивается.
+-- Если в таблице уже есть пересекающиеся записи, ограничение не создается (проверяется приложением).
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'appointments_no_overlap') THEN
+        ALTER TABLE appointments ADD CONSTRAINT appointments_no_overlap
+            EXCLUDE USING gist (
+                barber_id WITH =,
+                tsrange(appointment_date_time, appointment_end_time) WITH &&
+            )
+            WHERE (status <> 'CANCELLED');
+    END IF;
+EXCEPTION
+    WHEN exclusion_violation THEN
+        RAISE WARNING 'appointments_no_overlap не создано: в таблице есть пересекающиеся записи';
+END
+$$;
@@ -0,0 +1,151 @@
+package com.example.barbershop.config;
+
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.entity.Barber;
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.entity.User;
+import com.example.barbershop.repository.AppointmentRepository;
+import com.example.barbershop.repository.BarberRepository;
+import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверки на настоящем PostgreSQL: ограничение-исключение на пересечение записей
+ * и миграция существующей таблицы appointments. Без Docker пропускаются.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresIntegrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BarberServiceRepository barberServiceRepository;
+
+    @Autowired
+    private BarberRepository barberRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseConstraintsInitializer constraintsInitializer;
+
+    @Test
+    void overlappingAppointmentsAreRejectedByExclusionConstraint() {
+        LocalDateTime start = LocalDateTime.of(2099, 1, 10, 10, 0);
+        appointmentRepository.saveAndFlush(appointment(start, start.plusMinutes(60)));
+
+        assertThatThrownBy(() -> appointmentRepository.saveAndFlush(
+                appointment(start.plusMinutes(30), start.plusMinutes(90))))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .satisfies(e -> assertThat(constraintViolation(e).getSQLState()).isEqualTo("23P01"));
+
+        // Соседняя запись, начинающаяся ровно в момент окончания предыдущей, допустима
+        appointmentRepository.saveAndFlush(appointment(start.plusMinutes(60), start.plusMinutes(90)));
+    }
+
+    @Test
+    void migrationBackfillsBarberAndEndTime() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2099, 2, 10, 12, 0);
+        Appointment saved = appointmentRepository.saveAndFlush(appointment(start, start.plusMinutes(15)));
+
+        // Состояние базы до появления колонок: значения отсутствуют, ограничения NOT NULL нет
+        jdbcTemplate.execute("ALTER TABLE appointments DROP CONSTRAINT appointments_no_overlap");
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN barber_id DROP NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN appointment_end_time DROP NOT NULL");
+        jdbcTemplate.update("UPDATE appointments SET barber_id = NULL, appointment_end_time = NULL WHERE id = ?",
+                saved.getId());
+
+        constraintsInitializer.createConstraints();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT a.barber_id, a.appointment_end_time, bs.barber_id AS expected_barber_id, "
+                        + "bs.actual_duration_minutes FROM appointments a "
+                        + "JOIN barber_services bs ON bs.id = a.barber_service_id WHERE a.id = ?", saved.getId());
+        assertThat(row.get("barber_id")).isEqualTo(row.get("expected_barber_id"));
+        assertThat(((Timestamp) row.get("appointment_end_time")).toLocalDateTime())
+                .isEqualTo(start.plusMinutes(((Number) row.get("actual_duration_minutes")).longValue()));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT is_nullable FROM information_schema.columns "
+                        + "WHERE table_name = 'appointments' AND column_name = 'barber_id'", String.class))
+                .isEqualTo("NO");
+        assertThat(constraintCount()).isEqualTo(1);
+    }
+
+    @Test
+    void existingOverlapsDoNotFailStartup() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2099, 3, 10, 10, 0);
+        jdbcTemplate.execute("ALTER TABLE appointments DROP CONSTRAINT appointments_no_overlap");
+        Appointment first = appointmentRepository.saveAndFlush(appointment(start, start.plusMinutes(60)));
+        Appointment second = appointmentRepository.saveAndFlush(
+                appointment(start.plusMinutes(30), start.plusMinutes(90)));
+        try {
+            // Старые пересечения: ограничение пропускается, запуск не падает
+            constraintsInitializer.createConstraints();
+            assertThat(constraintCount()).isZero();
+        } finally {
+            appointmentRepository.deleteAllById(List.of(first.getId(), second.getId()));
+            constraintsInitializer.createConstraints();
+        }
+        assertThat(constraintCount()).isEqualTo(1);
+    }
+
+    private Integer constraintCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ?", Integer.class,
+                Appointment.NO_OVERLAP_CONSTRAINT);
+    }
+
+    private Appointment appointment(LocalDateTime start, LocalDateTime end) {
+        User client = userRepository.findByEmail("client@test.ru").orElseThrow();
+        Barber barber = barberRepository.findAll().get(0);
+        BarberService barberService = barberServiceRepository.findByBarberId(barber.getId()).get(0);
+
+        Appointment appointment = new Appointment();
+        appointment.setClient(client);
+        appointment.setBarber(barber);
+        appointment.setBarberService(barberService);
+        appointment.setAppointmentDateTime(start);
+        appointment.setAppointmentEndTime(end);
+        appointment.setPrice(barberService.getActualPrice());
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        appointment.setCreatedAt(LocalDateTime.now());
+        return appointment;
+    }
+
+    private static ConstraintViolationException constraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation;
+            }
+        }
+        throw new AssertionError("Нет ConstraintViolationException в цепочке причин", e);
+    }
+}
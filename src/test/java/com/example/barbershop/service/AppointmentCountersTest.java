@@ -0,0 +1,85 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.event.AppointmentStatusChangedEvent;
+import com.example.barbershop.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentCountersTest {
+
+    private static final Long BARBER_ID = 1L;
+    private static final Long SERVICE_ID = 2L;
+
+    private final AppointmentRepository repository = mock(AppointmentRepository.class);
+    private final AppointmentCounters counters = new AppointmentCounters(repository);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void commitBeforeQueryWithListenerAfterSwapIsCountedOnce() {
+        when(repository.countByBarberServiceAndStatus()).thenReturn(List.of());
+        counters.reconcile();
+
+        // Транзакция уже закоммитила запись (она видна запросу сверки), но ее обработчик еще не отработал
+        TransactionSynchronizationManager.initSynchronization();
+        counters.onStatusChanged(created());
+        when(repository.countByBarberServiceAndStatus()).thenReturn(List.<Object[]>of(scheduledRow()));
+        counters.reconcile();
+        complete();
+
+        assertThat(counters.getTotals().scheduled()).isEqualTo(1);
+    }
+
+    @Test
+    void commitDuringQueryIsCountedOnce() {
+        when(repository.countByBarberServiceAndStatus()).thenReturn(List.of());
+        counters.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        counters.onStatusChanged(created());
+        // Транзакция завершается, пока выполняется запрос сверки
+        when(repository.countByBarberServiceAndStatus())
+                .thenAnswer(invocation -> {
+                    complete();
+                    return List.<Object[]>of(scheduledRow());
+                })
+                .thenReturn(List.<Object[]>of(scheduledRow()));
+        counters.reconcile();
+
+        assertThat(counters.getTotals().scheduled()).isEqualTo(1);
+    }
+
+    private static AppointmentStatusChangedEvent created() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return new AppointmentStatusChangedEvent(10L, BARBER_ID, SERVICE_ID, 3L, start, start.plusHours(1),
+                LocalDateTime.now(), null, Appointment.AppointmentStatus.SCHEDULED, 1000.0);
+    }
+
+    private static Object[] scheduledRow() {
+        return new Object[]{BARBER_ID, SERVICE_ID, Appointment.AppointmentStatus.SCHEDULED, 1L, 1000.0};
+    }
+
+    private static void complete() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AppointmentCursorTest {
+
+    @Test
+    void cursorRoundTrips() {
+        LocalDateTime dateTime = LocalDateTime.of(2026, 3, 14, 9, 30, 15, 123_000_000);
+
+        String cursor = AppointmentService.encodeCursor(dateTime, 42L);
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        assertThat(AppointmentService.decodeCursor(cursor))
+                .isEqualTo(new AppointmentService.PagePosition(dateTime, 42L));
+    }
+
+    @Test
+    void cursorOnWholeMinuteRoundTrips() {
+        LocalDateTime dateTime = LocalDateTime.of(2026, 3, 14, 10, 0);
+
+        assertThat(AppointmentService.decodeCursor(AppointmentService.encodeCursor(dateTime, 7L)))
+                .isEqualTo(new AppointmentService.PagePosition(dateTime, 7L));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThatThrownBy(() -> AppointmentService.decodeCursor("не base64"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+        assertThatThrownBy(() -> AppointmentService.decodeCursor(encode("2026-03-14T10:00")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+        assertThatThrownBy(() -> AppointmentService.decodeCursor(encode("вчера|1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+        assertThatThrownBy(() -> AppointmentService.decodeCursor(encode("2026-03-14T10:00|abc")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.entity.Appointment;
+import com.example.barbershop.entity.Barber;
+import com.example.barbershop.entity.BarberService;
+import com.example.barbershop.entity.ServiceItem;
+import com.example.barbershop.entity.User;
+import com.example.barbershop.repository.AppointmentRepository;
+import com.example.barbershop.repository.BarberRepository;
+import com.example.barbershop.repository.BarberServiceRepository;
+import com.example.barbershop.repository.ServiceRepository;
+import com.example.barbershop.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceTest {
+
+    private static final Long BARBER_ID = 1L;
+    private static final Long BARBER_SERVICE_ID = 5L;
+    private static final Long CLIENT_ID = 7L;
+    private static final LocalDateTime TEN = LocalDate.now().plusDays(1).atTime(10, 0);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final BarberServiceRepository barberServiceRepository = mock(BarberServiceRepository.class);
+    private final AvailabilityService availabilityService = mock(AvailabilityService.class);
+    private final SlotHoldService slotHoldService = mock(SlotHoldService.class);
+    private final WorkingScheduleService workingScheduleService = mock(WorkingScheduleService.class);
+
+    private final AppointmentService service = new AppointmentService(
+            appointmentRepository,
+            barberServiceRepository,
+            mock(UserRepository.class),
+            mock(ServiceRepository.class),
+            mock(BarberRepository.class),
+            mock(BarberScheduleIndex.class),
+            availabilityService,
+            slotHoldService,
+            workingScheduleService,
+            mock(BookingLockManager.class),
+            mock(ApplicationEventPublisher.class));
+
+    private final User client = new User();
+
+    @BeforeEach
+    void setUp() {
+        client.setId(CLIENT_ID);
+        client.setEmail("client@test.ru");
+
+        User barberUser = new User();
+        barberUser.setEmail("barber@test.ru");
+        Barber barber = new Barber();
+        barber.setId(BARBER_ID);
+        barber.setUser(barberUser);
+        ServiceItem serviceItem = new ServiceItem();
+        serviceItem.setName("Стрижка");
+        BarberService barberService = new BarberService();
+        barberService.setId(BARBER_SERVICE_ID);
+        barberService.setBarber(barber);
+        barberService.setService(serviceItem);
+        barberService.setActualPrice(1000.0);
+        barberService.setActualDurationMinutes(60);
+
+        when(barberServiceRepository.findById(BARBER_SERVICE_ID)).thenReturn(Optional.of(barberService));
+        when(workingScheduleService.isWithinWorkingHours(eq(BARBER_ID), any(), any())).thenReturn(true);
+        when(appointmentRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            appointment.setId(100L);
+            return appointment;
+        });
+    }
+
+    @Test
+    void clientBookingConsumesOwnHold() {
+        when(availabilityService.isFree(BARBER_ID, TEN, TEN.plusHours(1), CLIENT_ID)).thenReturn(true);
+
+        service.createAppointment(client, BARBER_SERVICE_ID, TEN);
+
+        verify(slotHoldService).releaseClientHoldOnCommit(CLIENT_ID);
+    }
+
+    @Test
+    void waitlistBookingKeepsClientHold() {
+        when(availabilityService.isFree(eq(BARBER_ID), eq(TEN), eq(TEN.plusHours(1)), isNull())).thenReturn(true);
+
+        service.createAppointment(client, BARBER_SERVICE_ID, TEN, true);
+
+        // Удержание клиентом другого слота остается на месте
+        verify(slotHoldService, never()).releaseClientHoldOnCommit(anyLong());
+    }
+
+    @Test
+    void waitlistBookingRespectsClientOwnHold() {
+        // Время свободно только без учета удержаний самого клиента
+        when(availabilityService.isFree(BARBER_ID, TEN, TEN.plusHours(1), CLIENT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.createAppointment(client, BARBER_SERVICE_ID, TEN, true))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(appointmentRepository, never()).saveAndFlush(any());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.barbershop.service;
+
+import com.example.barbershop.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BarberScheduleIndexTest {
+
+    private static final Long BARBER_ID = 1L;
+    private static final LocalDateTime TEN = LocalDate.now().plusDays(1).atTime(10, 0);
+
+    private final AppointmentRepository repository = mock(AppointmentRepository.class);
+    private final BarberScheduleIndex index = new BarberScheduleIndex(repository, mock(ApplicationEventPublisher.class));
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findActiveIntervalsByBarber(eq(BARBER_ID), any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rollbackRemovesOnlyItsOwnInterval() {
+        assertThat(index.isFree(BARBER_ID, TEN, TEN.plusHours(1))).isTrue();
+
+        // Транзакция 1 добавляет интервал и потом откатывается
+        TransactionSynchronizationManager.initSynchronization();
+        index.add(BARBER_ID, 10L, TEN, TEN.plusHours(1));
+        List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Транзакция 2 еще не закоммитила свой интервал
+        TransactionSynchronizationManager.initSynchronization();
+        index.add(BARBER_ID, 11L, TEN.plusHours(2), TEN.plusHours(3));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(index.isFree(BARBER_ID, TEN, TEN.plusHours(1))).isTrue();
+        assertThat(index.isFree(BARBER_ID, TEN.plusHours(2), TEN.plusHours(3))).isFalse();
+        // Индекс мастера не перечитывался из базы
+        verify(repository, times(1)).findActiveIntervalsByBarber(eq(BARBER_ID), any());
+    }
+
+    @Test
+    void overlappingIntervalIsBusy() {
+        index.add(BARBER_ID, 10L, TEN, TEN.plusHours(1));
+
+        assertThat(index.isFree(BARBER_ID, TEN.plusMinutes(30), TEN.plusMinutes(90))).isFalse();
+        assertThat(index.isFree(BARBER_ID, TEN.plusHours(1), TEN.plusHours(2))).isTrue();
+        assertThat(index.isFree(BARBER_ID, TEN.minusHours(1), TEN)).isTrue();
+    }
+
+    @Test
+    void nestedLegacyIntervalDoesNotHideLongerOne() {
+        // Старые данные: запись 09:00–11:00 и вложенная в нее 09:30–09:45
+        LocalDateTime nine = TEN.minusHours(1);
+        when(repository.findActiveIntervalsByBarber(eq(BARBER_ID), any())).thenReturn(List.of(
+                new Object[]{10L, nine, nine.plusHours(2)},
+                new Object[]{11L, nine.plusMinutes(30), nine.plusMinutes(45)}));
+
+        assertThat(index.isFree(BARBER_ID, TEN, TEN.plusMinutes(30))).isFalse();
+        assertThat(index.getIntervals(BARBER_ID, TEN, TEN.plusMinutes(30)))
+                .extracting(BarberScheduleIndex.Interval::appointmentId)
+                .containsExactly(10L);
+        assertThat(index.isFree(BARBER_ID, TEN.plusHours(1), TEN.plusHours(2))).isTrue();
+    }
+}
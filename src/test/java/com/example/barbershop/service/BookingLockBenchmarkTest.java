@@ -0,0 +1,144 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пропускная способность бронирований с блокировкой мастера и без нее.
+ * Бронирование моделируется как проверка слота, пауза на запись в базу и вставка;
+ * без блокировки между проверкой и вставкой возникают двойные записи.
+ * Запуск: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class BookingLockBenchmarkTest {
+
+    private static final int BOOKERS = 32;
+    private static final int BARBERS = 20;
+    private static final int SLOTS_PER_BARBER = 1_000_000;
+    private static final long DB_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final long WARMUP_MS = 1_000;
+    private static final long MEASURE_MS = 5_000;
+
+    @Test
+    void stripedLockVersusNone() throws Exception {
+        Result none = run("none");
+        Result striped = run("striped");
+
+        System.out.printf("Бронирующих потоков: %d, мастеров: %d, запись в базу: %d мкс%n",
+                BOOKERS, BARBERS, TimeUnit.NANOSECONDS.toMicros(DB_ROUND_TRIP_NANOS));
+        print("none", none);
+        print("striped", striped);
+
+        assertThat(striped.doubleBookings()).isZero();
+    }
+
+    private Result run(String mode) throws Exception {
+        BookingLockManager lockManager = new BookingLockManager();
+        ReflectionTestUtils.setField(lockManager, "lockMode", mode);
+        ReflectionTestUtils.setField(lockManager, "stripeCount", 64);
+        ReflectionTestUtils.setField(lockManager, "lockTimeoutMs", 60_000L);
+        lockManager.init();
+
+        List<Set<Integer>> booked = new ArrayList<>();
+        for (int i = 0; i < BARBERS; i++) {
+            booked.add(ConcurrentHashMap.newKeySet());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKERS);
+        try {
+            measure(executor, lockManager, booked, WARMUP_MS);
+            booked.forEach(Set::clear);
+            return measure(executor, lockManager, booked, MEASURE_MS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result measure(ExecutorService executor, BookingLockManager lockManager,
+                           List<Set<Integer>> booked, long durationMs) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            workers.add(executor.submit(() -> book(lockManager, booked, running, start)));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(durationMs);
+        running.set(false);
+
+        long bookings = 0;
+        long doubleBookings = 0;
+        for (Future<long[]> worker : workers) {
+            long[] counts = worker.get(1, TimeUnit.MINUTES);
+            bookings += counts[0];
+            doubleBookings += counts[1];
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return new Result(bookings / seconds, doubleBookings);
+    }
+
+    /**
+     * Цикл одного бронирующего: возвращает число успешных бронирований и двойных записей.
+     */
+    private long[] book(BookingLockManager lockManager, List<Set<Integer>> booked,
+                        AtomicBoolean running, CountDownLatch start) throws InterruptedException {
+        start.await();
+        long bookings = 0;
+        long doubleBookings = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running.get()) {
+            int barber = random.nextInt(BARBERS);
+            int slot = random.nextInt(SLOTS_PER_BARBER);
+            Set<Integer> barberSlots = booked.get(barber);
+
+            TransactionSynchronizationManager.initSynchronization();
+            int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+            try {
+                lockManager.lockBarberForTransaction((long) barber);
+                if (!barberSlots.contains(slot)) {
+                    LockSupport.parkNanos(DB_ROUND_TRIP_NANOS);
+                    if (barberSlots.add(slot)) {
+                        bookings++;
+                    } else {
+                        doubleBookings++;
+                    }
+                }
+                status = TransactionSynchronization.STATUS_COMMITTED;
+            } finally {
+                int completion = status;
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(completion));
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+        return new long[]{bookings, doubleBookings};
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%-8s %10.0f бронирований/с, двойных записей: %d%n",
+                mode, result.bookingsPerSecond(), result.doubleBookings());
+    }
+
+    private record Result(double bookingsPerSecond, long doubleBookings) {
+    }
+}
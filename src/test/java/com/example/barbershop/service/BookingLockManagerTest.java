@@ -0,0 +1,121 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingLockManagerTest {
+
+    private final BookingLockManager lockManager = new BookingLockManager();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lockManager, "lockMode", "striped");
+        ReflectionTestUtils.setField(lockManager, "stripeCount", 64);
+        ReflectionTestUtils.setField(lockManager, "lockTimeoutMs", 5000L);
+        lockManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void bookingsForSameBarberAreSerialized() throws Exception {
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+        CountDownLatch secondLocked = new CountDownLatch(1);
+
+        Future<?> first = executor.submit(() -> inTransaction(1L, firstLocked, commitFirst));
+        assertThat(firstLocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> second = executor.submit(() -> inTransaction(1L, secondLocked, new CountDownLatch(0)));
+        // Пока первая транзакция не завершена, вторая ждет блокировку мастера
+        assertThat(secondLocked.await(300, TimeUnit.MILLISECONDS)).isFalse();
+
+        commitFirst.countDown();
+        assertThat(secondLocked.await(5, TimeUnit.SECONDS)).isTrue();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void bookingsForDifferentBarbersRunConcurrently() throws Exception {
+        Long firstBarber = 1L;
+        Long secondBarber = 2L;
+        assertThat(stripeIndex(firstBarber)).isNotEqualTo(stripeIndex(secondBarber));
+
+        CountDownLatch bothLocked = new CountDownLatch(2);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        Future<?> first = executor.submit(() -> inTransaction(firstBarber, bothLocked, commit));
+        Future<?> second = executor.submit(() -> inTransaction(secondBarber, bothLocked, commit));
+
+        // Обе транзакции держат свои блокировки одновременно
+        assertThat(bothLocked.await(5, TimeUnit.SECONDS)).isTrue();
+        commit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void waitingLongerThanTimeoutFails() throws Exception {
+        ReflectionTestUtils.setField(lockManager, "lockTimeoutMs", 100L);
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> inTransaction(1L, firstLocked, commitFirst));
+        assertThat(firstLocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThatThrownBy(() -> lockManager.lockBarberForTransaction(1L))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            commitFirst.countDown();
+        }
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void lockRequiresTransaction() {
+        assertThatThrownBy(() -> lockManager.lockBarberForTransaction(1L))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Имитация транзакции бронирования: блокировка, ожидание сигнала коммита, завершение транзакции.
+     */
+    private Void inTransaction(Long barberId, CountDownLatch locked, CountDownLatch commit) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockBarberForTransaction(barberId);
+            locked.countDown();
+            assertThat(commit.await(5, TimeUnit.SECONDS)).isTrue();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        return null;
+    }
+
+    private int stripeIndex(Long barberId) {
+        return ReflectionTestUtils.invokeMethod(lockManager, "stripeIndex", barberId);
+    }
+}
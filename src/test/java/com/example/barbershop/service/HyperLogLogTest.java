@@ -0,0 +1,89 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertThat(sketch.isEmpty()).isTrue();
+        assertThat(sketch.estimate()).isZero();
+    }
+
+    @Test
+    void smallSetsAreCountedAlmostExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) {
+            sketch.add(id);
+            sketch.add(id); // повторное добавление не меняет оценку
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(50L, within(2L));
+    }
+
+    @Test
+    void largeSetsStayWithinFewStandardErrors() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) {
+            sketch.add(id);
+        }
+
+        // Стандартная ошибка около 2,3%; 4 ошибки — с запасом
+        assertThat(sketch.estimate()).isCloseTo(100_000L, within(9_200L));
+    }
+
+    @Test
+    void mergeIsUnionAndIdempotent() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long id = 0; id < 3_000; id++) {
+            first.add(id);
+            union.add(id);
+        }
+        for (long id = 2_000; id < 5_000; id++) {
+            second.add(id);
+            union.add(id);
+        }
+
+        first.merge(second);
+        long merged = first.estimate();
+        first.merge(second);
+
+        assertThat(merged).isEqualTo(union.estimate());
+        assertThat(first.estimate()).isEqualTo(merged);
+    }
+
+    @Test
+    void sparseAndDenseFormsRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (long id = 1; id <= 20; id++) {
+            sparse.add(id);
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (long id = 1; id <= 10_000; id++) {
+            dense.add(id);
+        }
+
+        assertThat(sparse.toBytes()).hasSize(1 + 3 * 20);
+        assertThat(dense.toBytes()).hasSize(1 + 2048);
+        assertThat(HyperLogLog.fromBytes(sparse.toBytes()).estimate()).isEqualTo(sparse.estimate());
+        assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+    }
+
+    @Test
+    void corruptedDataIsRejected() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{1, 0x7F, 0x7F, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{5, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LogHistogramTest {
+
+    @Test
+    void emptyHistogramHasNoPercentiles() {
+        assertThat(new LogHistogram().percentiles()).isEqualTo(LogHistogram.Percentiles.EMPTY);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LogHistogram histogram = new LogHistogram();
+        for (int value = 1; value <= 50; value++) {
+            histogram.record(value);
+        }
+
+        LogHistogram.Percentiles percentiles = histogram.percentiles();
+        assertThat(percentiles.count()).isEqualTo(50);
+        assertThat(percentiles.p50()).isEqualTo(25);
+        assertThat(percentiles.p90()).isEqualTo(45);
+        assertThat(percentiles.p99()).isEqualTo(50);
+        assertThat(percentiles.max()).isEqualTo(50);
+    }
+
+    @Test
+    void largeValuesStayWithinRelativeError() {
+        LogHistogram histogram = new LogHistogram();
+        for (int value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        // Относительная ошибка не больше 1/64
+        LogHistogram.Percentiles percentiles = histogram.percentiles();
+        assertThat(percentiles.p50()).isCloseTo(50_000L, within(50_000L / 64));
+        assertThat(percentiles.p90()).isCloseTo(90_000L, within(90_000L / 64));
+        assertThat(percentiles.p99()).isCloseTo(99_000L, within(99_000L / 64));
+        assertThat(percentiles.max()).isBetween(100_000L, 100_000L + 100_000L / 32);
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LogHistogram.Percentiles percentiles = histogram.percentiles();
+        assertThat(percentiles.p50()).isZero();
+        assertThat(percentiles.max()).isEqualTo((1L << 25) - 1);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws Exception {
+        LogHistogram histogram = new LogHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int value = 0; value < 10_000; value++) {
+                    histogram.record(value);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.percentiles().count()).isEqualTo(40_000);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurrenceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    private static RecurringSeriesIndex.Recurrence series(LocalDate start, LocalTime time, int weeks, int minutes) {
+        return new RecurringSeriesIndex.Recurrence(null, start, time, weeks * 7, null, minutes, Set.of());
+    }
+
+    @Test
+    void occurrencesStartFromFirstMatchingDate() {
+        RecurringSeriesIndex.Recurrence recurrence = new RecurringSeriesIndex.Recurrence(null, MONDAY,
+                LocalTime.of(10, 0), 21, null, 60, Set.of(MONDAY.plusDays(42)));
+
+        List<LocalDateTime> starts = recurrence.occurrences(MONDAY.plusDays(1).atStartOfDay(),
+                        MONDAY.plusDays(64).atStartOfDay()).stream()
+                .map(BarberScheduleIndex.Interval::start)
+                .toList();
+
+        // 28 января, 18 февраля (пропущено), 11 марта
+        assertThat(starts).containsExactly(MONDAY.plusDays(21).atTime(10, 0), MONDAY.plusDays(63).atTime(10, 0));
+        assertThat(recurrence.isOccurrenceDate(MONDAY.plusDays(42))).isTrue();
+        assertThat(recurrence.isOccurrenceDate(MONDAY.plusDays(43))).isFalse();
+    }
+
+    @Test
+    void findsCollisionBeyondAnyFixedHorizon() {
+        // 52 * 3 = 51 * 3 + 3: серии впервые совпадают примерно через три года
+        RecurringSeriesIndex.Recurrence a = series(MONDAY, LocalTime.of(10, 0), 52, 60);
+        RecurringSeriesIndex.Recurrence b = series(MONDAY.plusWeeks(3), LocalTime.of(10, 30), 51, 60);
+
+        LocalDateTime twoYears = MONDAY.plusYears(2).atStartOfDay();
+        assertThat(overlapsByEnumeration(a, b, MONDAY.atStartOfDay(), twoYears)).isFalse();
+        assertThat(overlapsByEnumeration(a, b, twoYears, MONDAY.plusYears(4).atStartOfDay())).isTrue();
+        assertThat(a.eventuallyOverlaps(b)).isTrue();
+        assertThat(b.eventuallyOverlaps(a)).isTrue();
+    }
+
+    @Test
+    void interleavedSeriesNeverOverlap() {
+        RecurringSeriesIndex.Recurrence a = series(MONDAY, LocalTime.of(10, 0), 2, 60);
+        RecurringSeriesIndex.Recurrence b = series(MONDAY.plusWeeks(1), LocalTime.of(10, 0), 2, 60);
+        RecurringSeriesIndex.Recurrence adjacent = series(MONDAY, LocalTime.of(11, 0), 4, 30);
+
+        assertThat(a.eventuallyOverlaps(b)).isFalse();
+        assertThat(a.eventuallyOverlaps(adjacent)).isFalse();
+        assertThat(adjacent.eventuallyOverlaps(a)).isFalse();
+        assertThat(overlapsByEnumeration(a, b, MONDAY.atStartOfDay(), MONDAY.plusYears(10).atStartOfDay())).isFalse();
+    }
+
+    @Test
+    void partialTimeOverlapIsDetectedBothWays() {
+        RecurringSeriesIndex.Recurrence a = series(MONDAY, LocalTime.of(10, 0), 3, 60);
+        RecurringSeriesIndex.Recurrence b = series(MONDAY.plusWeeks(9), LocalTime.of(9, 30), 6, 45);
+
+        assertThat(a.eventuallyOverlaps(b)).isTrue();
+        assertThat(b.eventuallyOverlaps(a)).isTrue();
+    }
+
+    private static boolean overlapsByEnumeration(RecurringSeriesIndex.Recurrence a, RecurringSeriesIndex.Recurrence b,
+                                                 LocalDateTime from, LocalDateTime to) {
+        for (BarberScheduleIndex.Interval x : a.occurrences(from, to)) {
+            for (BarberScheduleIndex.Interval y : b.occurrences(x.start(), x.end())) {
+                if (y.overlaps(x.start(), x.end())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
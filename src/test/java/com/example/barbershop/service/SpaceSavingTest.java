@@ -0,0 +1,75 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactWhileKeysFitCapacity() {
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.add(1L, 5);
+        summary.add(2L, 2);
+        summary.add(1L, 1);
+        summary.add(3L, 2);
+
+        assertThat(summary.top(3)).containsExactly(
+                new SpaceSaving.Item(1L, 6, 0),
+                new SpaceSaving.Item(2L, 2, 0),
+                new SpaceSaving.Item(3L, 2, 0));
+        assertThat(summary.top(1)).extracting(SpaceSaving.Item::key).containsExactly(1L);
+    }
+
+    @Test
+    void heavyHittersSurviveEvictionWithBoundedError() {
+        SpaceSaving summary = new SpaceSaving(5);
+        // Ключи 1 и 2 — по 300 раз, еще 400 различных ключей по одному разу вперемешку
+        long rare = 1_000;
+        for (int i = 0; i < 300; i++) {
+            summary.add(1L, 1);
+            summary.add(2L, 1);
+            if (i % 3 != 0) {
+                summary.add(rare++, 1);
+                summary.add(rare++, 1);
+            }
+        }
+
+        List<SpaceSaving.Item> top = summary.top(2);
+        assertThat(top).extracting(SpaceSaving.Item::key).containsExactlyInAnyOrder(1L, 2L);
+        for (SpaceSaving.Item item : top) {
+            // Оценка сверху: истинная частота в [count - error, count]
+            assertThat(item.count() - item.error()).isLessThanOrEqualTo(300);
+            assertThat(item.count()).isGreaterThanOrEqualTo(300);
+        }
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsLargest() {
+        SpaceSaving first = new SpaceSaving(2);
+        first.add(1L, 10);
+        first.add(2L, 3);
+        SpaceSaving second = new SpaceSaving(2);
+        second.add(2L, 4);
+        second.add(3L, 5);
+
+        first.merge(second);
+
+        assertThat(first.top(5)).containsExactly(
+                new SpaceSaving.Item(1L, 10, 0),
+                new SpaceSaving.Item(2L, 7, 0));
+    }
+
+    @Test
+    void copyIsIndependent() {
+        SpaceSaving original = new SpaceSaving(2);
+        original.add(1L, 1);
+        SpaceSaving copy = original.copy();
+        copy.add(1L, 5);
+
+        assertThat(original.top(1)).containsExactly(new SpaceSaving.Item(1L, 1, 0));
+        assertThat(copy.top(1)).containsExactly(new SpaceSaving.Item(1L, 6, 0));
+    }
+}
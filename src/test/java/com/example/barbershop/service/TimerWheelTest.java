@@ -0,0 +1,61 @@
+package com.example.barbershop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimerWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final Map<String, Instant> fired = new ConcurrentHashMap<>();
+    private final CountDownLatch latch = new CountDownLatch(2);
+
+    // Маленькое колесо: таймеры дальше одного оборота (40 мс) проходят через ячейку несколько раз
+    private final TimerWheel<String> wheel = new TimerWheel<>("test-wheel", TICK_MILLIS, 4, item -> {
+        fired.put(item, Instant.now());
+        latch.countDown();
+    });
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesNotBeforeDeadlineEvenAfterSeveralRotations() throws Exception {
+        Instant start = Instant.now();
+        Instant nearDeadline = start.plusMillis(30);
+        Instant farDeadline = start.plusMillis(250);
+        wheel.schedule("far", farDeadline);
+        wheel.schedule("near", nearDeadline);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired.get("near")).isAfterOrEqualTo(nearDeadline);
+        assertThat(fired.get("far")).isAfterOrEqualTo(farDeadline);
+        assertThat(fired.get("far")).isAfter(fired.get("near"));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTicks() throws Exception {
+        wheel.schedule("late", Instant.now().minusSeconds(60));
+        wheel.schedule("late-too", Instant.now().minusSeconds(1));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired).containsKeys("late", "late-too");
+    }
+
+    @Test
+    void wheelSizeMustBePowerOfTwo() {
+        assertThatThrownBy(() -> new TimerWheel<String>("bad", TICK_MILLIS, 6, item -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}